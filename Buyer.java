@@ -1,17 +1,54 @@
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
-public class Buyer extends User implements PurchasingInterface {
-    private List<CartItem> cart;
+public class Buyer extends User implements PurchasingInterface, ProductListener {
+    private static final int RECENT_ORDERS = 5;
+
+    private Map<Long, CartItem> cart;
+    private long cartTotalCentavos;
+    private int cartUnits;
+    private ReservationManager reservationManager;
+    private OrderSequencer orderSequencer;
+    private Journal journal;
+    private OrderLedger orderLedger;
+    private long version;
+    private boolean checkoutPending;
+    private volatile Metrics metrics;
 
     public Buyer(String username, String email) {
         super(username, email);
-        this.cart = new ArrayList<>();
+        this.cart = new LinkedHashMap<>();
+    }
+
+    Buyer(long id, String username, String email) {
+        super(id, username, email);
+        this.cart = new LinkedHashMap<>();
     }
 
     @Override
     public void addToCart(Product product, int quantity) {
+        Metrics current = metrics;
+        if (current == null) {
+            addToCartLocked(product, quantity);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            addToCartLocked(product, quantity);
+            success = true;
+        } finally {
+            current.record(Metrics.Operation.ADD_TO_CART, start, success);
+        }
+    }
+
+    private synchronized void addToCartLocked(Product product, int quantity) {
+        ensureNoCheckoutPending();
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
         }
@@ -19,92 +56,504 @@ public class Buyer extends User implements PurchasingInterface {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
         if (!product.isAvailable(quantity)) {
+            recordOversellAttempt();
             throw new IllegalStateException("Product is out of stock or insufficient quantity");
         }
 
-        CartItem existingItem = cart.stream()
-                .filter(item -> item.getProduct().equals(product))
-                .findFirst()
-                .orElse(null);
+        CartItem existingItem = cart.get(product.getId());
 
-        if (existingItem != null) {
-            int newQuantity = existingItem.getQuantity() + quantity;
-            if (!product.isAvailable(newQuantity)) {
+        try {
+            if (existingItem != null) {
+                int newQuantity = existingItem.getQuantity() + quantity;
+                if (reservationManager != null ? !holdLine(existingItem, newQuantity)
+                        : !product.isAvailable(newQuantity)) {
+                    recordOversellAttempt();
+                    throw new IllegalStateException("Insufficient stock for requested quantity");
+                }
+                setLineQuantity(existingItem, newQuantity);
+            } else if (reservationManager != null) {
+                Reservation reservation = reservationManager.reserve(product, quantity);
+                if (reservation == null) {
+                    recordOversellAttempt();
+                    throw new IllegalStateException("Product is out of stock or insufficient quantity");
+                }
+                addLine(product, quantity).setReservation(reservation);
+            } else {
+                addLine(product, quantity);
+            }
+        } finally {
+            journalLine(product);
+        }
+    }
+
+    public synchronized void updateCartQuantity(Product product, int quantity) {
+        ensureNoCheckoutPending();
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        CartItem item = cart.get(product.getId());
+        if (item == null) {
+            throw new IllegalArgumentException("Product is not in the cart");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        try {
+            if (reservationManager != null ? !holdLine(item, quantity) : !product.isAvailable(quantity)) {
                 throw new IllegalStateException("Insufficient stock for requested quantity");
             }
-            existingItem.setQuantity(newQuantity);
-        } else {
-            cart.add(new CartItem(product, quantity));
+            setLineQuantity(item, quantity);
+        } finally {
+            journalLine(product);
         }
     }
 
+    public synchronized boolean removeFromCart(Product product) {
+        ensureNoCheckoutPending();
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        CartItem item = cart.remove(product.getId());
+        if (item == null) {
+            return false;
+        }
+        product.removeListener(this);
+        releaseHold(item);
+        version++;
+        cartTotalCentavos = Money.subtract(cartTotalCentavos,
+                Money.multiply(item.getUnitPriceCentavos(), item.getQuantity()));
+        cartUnits -= item.getQuantity();
+        journalLine(product);
+        return true;
+    }
+
     @Override
     public boolean checkout() {
-        if (cart.isEmpty()) {
-            return false;
+        return placeOrder().isSuccessful();
+    }
+
+    public OrderResult placeOrder() {
+        Metrics current = metrics;
+        if (current == null) {
+            return checkoutLocked(null);
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            OrderResult result = checkoutLocked(current);
+            success = result.isSuccessful();
+            return result;
+        } finally {
+            current.record(Metrics.Operation.CHECKOUT, start, success);
         }
+    }
 
-        List<CartItem> itemsToProcess = new ArrayList<>(cart);
-        List<String> errors = new ArrayList<>();
+    private OrderResult checkoutLocked(Metrics current) {
+        OrderSequencer sequencer;
+        List<CartItem> items;
+        synchronized (this) {
+            ensureNoCheckoutPending();
+            if (cart.isEmpty()) {
+                if (current != null) {
+                    current.recordCheckoutFailure("empty cart");
+                }
+                return new OrderResult(false, 0, List.of("Cart is empty"));
+            }
+            sequencer = orderSequencer;
+            if (sequencer == null) {
+                items = new ArrayList<>(cart.values());
+                if (journal != null) {
+                    journal.beginCheckout();
+                }
+                try {
+                    CheckoutTransaction transaction = new CheckoutTransaction(items);
+                    return completeCheckout(current, items, transaction.reserveAll() ? null : transaction.getErrors(),
+                            journal);
+                } finally {
+                    if (journal != null) {
+                        journal.endCheckout();
+                    }
+                }
+            }
+            items = copyCartLines();
+            checkoutPending = true;
+        }
+
+        OrderResult result;
+        try {
+            result = sequencer.submit(this, items).join();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                checkoutPending = false;
+                adoptReservations(items);
+            }
+            if (e instanceof CompletionException && e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            checkoutPending = false;
+            adoptReservations(items);
+            return completeCheckout(current, items, result.isSuccessful() ? null : result.getFailures(), null);
+        }
+    }
 
-        for (CartItem item : itemsToProcess) {
-            Product product = item.getProduct();
-            if (!product.isAvailable(item.getQuantity())) {
-                errors.add(String.format("%s: insufficient stock (requested %d, available %d)",
-                        product.getName(), item.getQuantity(), product.getQuantity()));
+    private void adoptReservations(List<CartItem> copies) {
+        for (CartItem copy : copies) {
+            CartItem item = cart.get(copy.getProduct().getId());
+            if (item != null) {
+                item.setReservation(copy.getReservation());
             }
         }
+    }
 
-        if (!errors.isEmpty()) {
-            throw new IllegalStateException("Checkout failed:\n" + String.join("\n", errors));
+    private OrderResult completeCheckout(Metrics current, List<CartItem> items, List<String> failures,
+            Journal checkoutJournal) {
+        if (failures != null) {
+            if (current != null) {
+                current.recordCheckoutFailure("insufficient stock");
+                current.recordOversellAttempts(failures.size());
+            }
+            if (reservationManager != null) {
+                items.forEach(item -> journalLine(item.getProduct()));
+            }
+            throw new IllegalStateException("Checkout failed:\n" + String.join("\n", failures));
         }
 
-        for (CartItem item : itemsToProcess) {
-            item.getProduct().reduceQuantity(item.getQuantity());
+        long total = cartTotalCentavos;
+        if (orderLedger != null) {
+            orderLedger.record(this, cart.values());
+        }
+        if (checkoutJournal != null) {
+            checkoutJournal.recordCheckout(this, cart.values());
         }
+        clearLines();
+        return new OrderResult(true, total, null);
+    }
 
-        cart.clear();
-        return true;
+    private void ensureNoCheckoutPending() {
+        if (checkoutPending) {
+            throw new IllegalStateException("Checkout in progress");
+        }
     }
 
     @Override
-    public List<CartItem> getCart() {
-        return new ArrayList<>(cart);
+    public synchronized List<CartItem> getCart() {
+        List<CartItem> items = new ArrayList<>(cart.size());
+        cart.values().forEach(item -> items.add(new CartItem(item.getProduct(), item.getQuantity())));
+        return items;
+    }
+
+    synchronized List<CartItem> copyCartLines() {
+        List<CartItem> items = new ArrayList<>(cart.size());
+        cart.values().forEach(item -> {
+            CartItem copy = new CartItem(item.getProduct(), item.getQuantity());
+            copy.setUnitPriceCentavos(item.getUnitPriceCentavos());
+            copy.setReservation(item.getReservation());
+            items.add(copy);
+        });
+        return items;
+    }
+
+    synchronized int copyCartLines(Product[] products, int[] quantities) {
+        if (cart.size() > products.length || cart.size() > quantities.length) {
+            return -cart.size();
+        }
+        int count = 0;
+        for (CartItem item : cart.values()) {
+            products[count] = item.getProduct();
+            quantities[count] = item.getQuantity();
+            count++;
+        }
+        return count;
+    }
+
+    public synchronized CartItem getCartItem(Product product) {
+        CartItem item = product == null ? null : cart.get(product.getId());
+        return item == null ? null : new CartItem(item.getProduct(), item.getQuantity());
+    }
+
+    public synchronized int getHeldUnits() {
+        int held = 0;
+        for (CartItem item : cart.values()) {
+            Reservation reservation = item.getReservation();
+            if (reservation != null && reservation.isLive()) {
+                held += reservation.getQuantity();
+            }
+        }
+        return held;
+    }
+
+    public synchronized ReservationManager getReservationManager() {
+        return reservationManager;
+    }
+
+    public synchronized void setReservationManager(ReservationManager reservationManager) {
+        this.reservationManager = reservationManager;
+    }
+
+    public synchronized Journal getJournal() {
+        return journal;
+    }
+
+    public synchronized void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public synchronized OrderLedger getOrderLedger() {
+        return orderLedger;
+    }
+
+    public synchronized void setOrderLedger(OrderLedger orderLedger) {
+        this.orderLedger = orderLedger;
+    }
+
+    public List<Order> getOrders(int offset, int limit) {
+        OrderLedger ledger = getOrderLedger();
+        if (ledger == null) {
+            validatePage(offset, limit);
+            return new ArrayList<>();
+        }
+        return ledger.getOrders(this, offset, limit);
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public synchronized OrderSequencer getOrderSequencer() {
+        return orderSequencer;
+    }
+
+    public synchronized void setOrderSequencer(OrderSequencer orderSequencer) {
+        this.orderSequencer = orderSequencer;
+    }
+
+    public synchronized int getCartSize() {
+        return cart.size();
     }
 
     @Override
     public void clearCart() {
-        cart.clear();
+        Metrics current = metrics;
+        long start = current == null ? 0 : System.nanoTime();
+        synchronized (this) {
+            ensureNoCheckoutPending();
+            clearLines();
+            if (journal != null) {
+                journal.recordCartCleared(this);
+            }
+        }
+        if (current != null) {
+            current.record(Metrics.Operation.CLEAR_CART, start, true);
+        }
+    }
+
+    synchronized void restoreCartLine(Product product, int quantity) {
+        CartItem item = cart.get(product.getId());
+        if (quantity <= 0) {
+            if (item != null) {
+                removeFromCart(product);
+            }
+        } else if (item == null) {
+            addLine(product, quantity);
+        } else {
+            setLineQuantity(item, quantity);
+        }
+    }
+
+    @Override
+    public synchronized double getCartTotal() {
+        return Money.toPesos(cartTotalCentavos);
+    }
+
+    @Override
+    public synchronized long getCartTotalCentavos() {
+        return cartTotalCentavos;
+    }
+
+    public synchronized int getCartUnits() {
+        return cartUnits;
     }
 
     @Override
-    public double getCartTotal() {
-        return cart.stream()
-                .mapToDouble(CartItem::getTotalPrice)
-                .sum();
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    @Override
+    public synchronized void nameChanged(Product product, String oldName) {
+        if (cart.containsKey(product.getId())) {
+            version++;
+        }
+    }
+
+    @Override
+    public synchronized void priceChanged(Product product, long oldPriceCentavos) {
+        CartItem item = cart.get(product.getId());
+        if (item == null) {
+            return;
+        }
+        long price = product.getPriceCentavos();
+        cartTotalCentavos = Money.add(cartTotalCentavos,
+                Money.multiply(Money.subtract(price, item.getUnitPriceCentavos()), item.getQuantity()));
+        item.setUnitPriceCentavos(price);
+        version++;
+    }
+
+    private CartItem addLine(Product product, int quantity) {
+        CartItem item = new CartItem(product, quantity);
+        long total = Money.add(cartTotalCentavos, Money.multiply(item.getUnitPriceCentavos(), quantity));
+        product.addListener(this);
+        cart.put(product.getId(), item);
+        cartTotalCentavos = total;
+        cartUnits += quantity;
+        version++;
+        return item;
+    }
+
+    private boolean holdLine(CartItem item, int quantity) {
+        Product product = item.getProduct();
+        Reservation current = item.getReservation();
+        int alreadyHeld = current != null && current.consume() ? current.getQuantity() : 0;
+        if (quantity > alreadyHeld && !CheckoutTransaction.tryReduceQuantity(product, quantity - alreadyHeld)) {
+            item.setReservation(alreadyHeld > 0 ? reservationManager.hold(product, alreadyHeld) : null);
+            return false;
+        }
+        if (quantity < alreadyHeld) {
+            product.increaseQuantity(alreadyHeld - quantity);
+        }
+        item.setReservation(reservationManager.hold(product, quantity));
+        return true;
+    }
+
+    private void releaseHold(CartItem item) {
+        Reservation reservation = item.getReservation();
+        if (reservation != null) {
+            reservation.release();
+            item.setReservation(null);
+        }
+    }
+
+    private void setLineQuantity(CartItem item, int quantity) {
+        int delta = quantity - item.getQuantity();
+        item.setQuantity(quantity);
+        cartTotalCentavos = Money.add(cartTotalCentavos, Money.multiply(item.getUnitPriceCentavos(), delta));
+        cartUnits += delta;
+        version++;
+    }
+
+    private void recordOversellAttempt() {
+        Metrics current = metrics;
+        if (current != null) {
+            current.recordOversellAttempts(1);
+        }
+    }
+
+    private void journalLine(Product product) {
+        if (journal == null) {
+            return;
+        }
+        CartItem item = cart.get(product.getId());
+        Reservation reservation = item == null ? null : item.getReservation();
+        journal.recordCartLine(this, product, item == null ? 0 : item.getQuantity(),
+                reservation != null && reservation.isLive() ? reservation.getId() : 0);
+    }
+
+    private void clearLines() {
+        cart.values().forEach(item -> {
+            item.getProduct().removeListener(this);
+            releaseHold(item);
+        });
+        cart.clear();
+        cartTotalCentavos = 0;
+        cartUnits = 0;
+        version++;
     }
 
     public List<Product> browseProducts(List<Seller> sellers) {
-        return sellers.stream()
+        Metrics current = metrics;
+        long start = current == null ? 0 : System.nanoTime();
+        List<Product> products = sellers.stream()
                 .flatMap(seller -> seller.getProducts().stream())
                 .filter(p -> p.getQuantity() > 0)
                 .collect(Collectors.toList());
+        if (current != null) {
+            current.record(Metrics.Operation.BROWSE_PRODUCTS, start, true);
+        }
+        return products;
+    }
+
+    public Collection<Product> browseProducts(Catalog catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        return catalog.getAvailableProducts();
+    }
+
+    public List<Product> browseProductsByPrice(Catalog catalog, long minPriceCentavos, long maxPriceCentavos,
+            int limit) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        Metrics current = metrics;
+        long start = current == null ? 0 : System.nanoTime();
+        List<Product> products = catalog.getAvailableProductsInPriceRange(minPriceCentavos, maxPriceCentavos, limit);
+        if (current != null) {
+            current.record(Metrics.Operation.BROWSE_PRODUCTS, start, true);
+        }
+        return products;
     }
 
     @Override
     public String getDashboard() {
+        return getDashboard(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized String getDashboard(int offset, int limit) {
+        validatePage(offset, limit);
         StringBuilder dashboard = new StringBuilder();
         dashboard.append("BUYER DASHBOARD \n");
         dashboard.append("Username: ").append(getUsername()).append("\n");
         dashboard.append("Email: ").append(getEmail()).append("\n");
         dashboard.append("Items in Cart: ").append(cart.size()).append("\n");
-        dashboard.append("Cart Total: ₱").append(String.format("%.2f", getCartTotal())).append("\n\n");
+        dashboard.append("Cart Total: ₱");
+        Money.appendTo(dashboard, cartTotalCentavos).append("\n\n");
 
         if (cart.isEmpty()) {
             dashboard.append("Cart is empty.\n");
         } else {
-            dashboard.append("Cart Items:\n");
-            cart.forEach(item -> dashboard.append("- ").append(item.toString()).append("\n"));
+            int end = (int) Math.min(cart.size(), (long) offset + limit);
+            dashboard.append("Cart Items");
+            if (offset >= end) {
+                dashboard.append(" (none on this page, ").append(cart.size()).append(" total)");
+            } else if (offset > 0 || end < cart.size()) {
+                dashboard.append(" (").append(offset + 1).append('-').append(end)
+                        .append(" of ").append(cart.size()).append(')');
+            }
+            dashboard.append(":\n");
+            int index = 0;
+            for (CartItem item : cart.values()) {
+                if (index >= end) {
+                    break;
+                }
+                if (index++ >= offset) {
+                    item.appendTo(dashboard.append("- ")).append("\n");
+                }
+            }
+        }
+
+        if (orderLedger != null) {
+            dashboard.append("\nOrders Placed: ").append(orderLedger.getOrderCount(this)).append("\n");
+            for (Order order : orderLedger.getOrders(this, 0, RECENT_ORDERS)) {
+                order.appendTo(dashboard.append("- ")).append("\n");
+            }
         }
         return dashboard.toString();
     }
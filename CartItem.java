@@ -3,6 +3,8 @@ import java.util.Objects;
 public class CartItem {
     private Product product;
     private int quantity;
+    private long unitPriceCentavos;
+    private Reservation reservation;
 
     public CartItem(Product product, int quantity) {
         if (product == null) {
@@ -13,6 +15,7 @@ public class CartItem {
         }
         this.product = product;
         this.quantity = quantity;
+        this.unitPriceCentavos = product.getPriceCentavos();
     }
 
     public Product getProduct() {
@@ -30,8 +33,33 @@ public class CartItem {
         this.quantity = quantity;
     }
 
+    long getUnitPriceCentavos() {
+        return unitPriceCentavos;
+    }
+
+    void setUnitPriceCentavos(long unitPriceCentavos) {
+        this.unitPriceCentavos = unitPriceCentavos;
+    }
+
+    Reservation getReservation() {
+        return reservation;
+    }
+
+    void setReservation(Reservation reservation) {
+        this.reservation = reservation;
+    }
+
     public double getTotalPrice() {
-        return product.getPrice() * quantity;
+        return Money.toPesos(getTotalCentavos());
+    }
+
+    public long getTotalCentavos() {
+        return Money.multiply(product.getPriceCentavos(), quantity);
+    }
+
+    StringBuilder appendTo(StringBuilder builder) {
+        builder.append(product.getName()).append(" x").append(quantity).append(" = ₱");
+        return Money.appendTo(builder, getTotalCentavos());
     }
 
     @Override
@@ -51,6 +79,6 @@ public class CartItem {
 
     @Override
     public String toString() {
-        return String.format("%s x%d = ₱%.2f", product.getName(), quantity, getTotalPrice());
+        return appendTo(new StringBuilder()).toString();
     }
 }
@@ -0,0 +1,260 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public class Catalog implements ProductListener {
+    private final Map<Long, Product> products;
+    private final Map<String, ConcurrentSkipListMap<Long, Product>> productsByName;
+    private final ConcurrentSkipListMap<Long, Product> availableProducts;
+    private final UserRegistry.UserList<Seller> sellers;
+    private final InventoryStore inventory;
+    private final SearchIndex searchIndex;
+    private final PriceIndex priceIndex;
+    private final List<ProductListener> listeners;
+    private final LongAdder version;
+    private final LongAdder availabilityVersion;
+
+    public Catalog() {
+        this.products = new ConcurrentHashMap<>();
+        this.productsByName = new ConcurrentHashMap<>();
+        this.availableProducts = new ConcurrentSkipListMap<>();
+        this.sellers = new UserRegistry.UserList<>();
+        this.inventory = new InventoryStore();
+        this.searchIndex = new SearchIndex();
+        this.priceIndex = new PriceIndex();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.version = new LongAdder();
+        this.availabilityVersion = new LongAdder();
+    }
+
+    public static String normalizeName(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public void addSeller(Seller seller) {
+        if (seller == null) {
+            throw new IllegalArgumentException("Seller cannot be null");
+        }
+        if (seller.getCatalog() == this) {
+            return;
+        }
+        if (seller.getCatalog() != null) {
+            throw new IllegalStateException("Seller already belongs to another catalog");
+        }
+        sellers.add(seller);
+        seller.setCatalog(this);
+        seller.getProducts().forEach(this::addProduct);
+    }
+
+    public List<Seller> getSellers() {
+        return Collections.unmodifiableList(sellers);
+    }
+
+    public void addProduct(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (products.putIfAbsent(product.getId(), product) != null) {
+            return;
+        }
+        product.addListener(this);
+        inventory.add(product);
+        indexName(product, product.getName());
+        searchIndex.add(product);
+        refreshAvailability(product);
+        version.increment();
+        for (ProductListener listener : listeners) {
+            listener.productAdded(product);
+        }
+    }
+
+    public void addProducts(Collection<Product> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        List<Product> added = new ArrayList<>(batch.size());
+        for (Product product : batch) {
+            if (product == null) {
+                throw new IllegalArgumentException("Product cannot be null");
+            }
+            if (products.putIfAbsent(product.getId(), product) == null) {
+                product.addListener(this);
+                added.add(product);
+            }
+        }
+        inventory.addAll(added);
+        searchIndex.addAll(added);
+        for (Product product : added) {
+            indexName(product, product.getName());
+            refreshAvailability(product);
+        }
+        version.increment();
+        for (Product product : added) {
+            for (ProductListener listener : listeners) {
+                listener.productAdded(product);
+            }
+        }
+    }
+
+    public void addListener(ProductListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(ProductListener listener) {
+        listeners.remove(listener);
+    }
+
+    public Product getProduct(long id) {
+        return products.get(id);
+    }
+
+    public Product findProduct(String name) {
+        ConcurrentSkipListMap<Long, Product> matches = productsByName.get(normalizeName(name));
+        if (matches == null) {
+            return null;
+        }
+        Map.Entry<Long, Product> first = matches.firstEntry();
+        return first == null ? null : first.getValue();
+    }
+
+    public Collection<Product> findProducts(String name) {
+        ConcurrentSkipListMap<Long, Product> matches = productsByName.get(normalizeName(name));
+        return matches == null ? Collections.emptyList() : Collections.unmodifiableCollection(matches.values());
+    }
+
+    public Product findProduct(Seller seller, String name) {
+        return seller == null ? null : seller.findProduct(name);
+    }
+
+    public Collection<Product> getProducts() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    public Collection<Product> getAvailableProducts() {
+        return Collections.unmodifiableCollection(availableProducts.values());
+    }
+
+    public NavigableMap<Long, Product> getAvailableProductsById() {
+        return Collections.unmodifiableNavigableMap(availableProducts);
+    }
+
+    public void forEachAvailableProductUnder(long maxPriceCentavos, Consumer<Product> action) {
+        inventory.forEachInStockUnder(maxPriceCentavos, action);
+    }
+
+    public List<Product> searchProducts(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    public List<Product> searchAvailableProducts(String query, int limit) {
+        return searchIndex.search(query, limit, product -> product.getQuantity() > 0);
+    }
+
+    public InventoryStore getInventory() {
+        return inventory;
+    }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public PriceIndex getPriceIndex() {
+        return priceIndex;
+    }
+
+    public List<Product> getCheapestProducts(int limit) {
+        return priceIndex.getCheapest(limit);
+    }
+
+    public List<Product> getAvailableProductsInPriceRange(long minPriceCentavos, long maxPriceCentavos, int limit) {
+        return priceIndex.getInRange(minPriceCentavos, maxPriceCentavos, limit);
+    }
+
+    public int getProductCount() {
+        return products.size();
+    }
+
+    public int getAvailableProductCount() {
+        return availableProducts.size();
+    }
+
+    public long getVersion() {
+        return version.sum();
+    }
+
+    public long getAvailabilityVersion() {
+        return availabilityVersion.sum();
+    }
+
+    @Override
+    public void nameChanged(Product product, String oldName) {
+        unindexName(product, oldName);
+        indexName(product, product.getName());
+        searchIndex.rename(product, oldName);
+        version.increment();
+        for (ProductListener listener : listeners) {
+            listener.nameChanged(product, oldName);
+        }
+    }
+
+    @Override
+    public void priceChanged(Product product, long oldPriceCentavos) {
+        inventory.update(product);
+        priceIndex.refresh(product);
+        version.increment();
+        for (ProductListener listener : listeners) {
+            listener.priceChanged(product, oldPriceCentavos);
+        }
+    }
+
+    @Override
+    public void quantityChanged(Product product, int oldQuantity, int newQuantity) {
+        inventory.update(product);
+        if ((oldQuantity > 0) != (newQuantity > 0)) {
+            refreshAvailability(product);
+        }
+        version.increment();
+        for (ProductListener listener : listeners) {
+            listener.quantityChanged(product, oldQuantity, newQuantity);
+        }
+    }
+
+    private void indexName(Product product, String name) {
+        productsByName.compute(normalizeName(name), (key, matches) -> {
+            ConcurrentSkipListMap<Long, Product> updated = matches == null ? new ConcurrentSkipListMap<>() : matches;
+            updated.put(product.getId(), product);
+            return updated;
+        });
+    }
+
+    private void unindexName(Product product, String name) {
+        productsByName.computeIfPresent(normalizeName(name), (key, matches) -> {
+            matches.remove(product.getId());
+            return matches.isEmpty() ? null : matches;
+        });
+    }
+
+    private void refreshAvailability(Product product) {
+        synchronized (product) {
+            if (product.getQuantity() > 0) {
+                availableProducts.put(product.getId(), product);
+            } else {
+                availableProducts.remove(product.getId());
+            }
+            priceIndex.refresh(product);
+        }
+        availabilityVersion.increment();
+    }
+}
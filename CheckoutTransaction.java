@@ -0,0 +1,147 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class CheckoutTransaction {
+    private static final int STRIPES = 1 << 10;
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    private final List<CartItem> items;
+    private final List<CartItem> reserved;
+    private final List<Reservation> consumed;
+    private final List<String> errors;
+
+    public CheckoutTransaction(List<CartItem> items) {
+        if (items == null) {
+            throw new IllegalArgumentException("Items cannot be null");
+        }
+        this.items = items;
+        this.reserved = new ArrayList<>(items.size());
+        this.consumed = new ArrayList<>(items.size());
+        this.errors = new ArrayList<>();
+    }
+
+    static boolean tryReduceQuantity(Product product, int amount) {
+        ReentrantLock lock = LOCKS[stripe(product)];
+        lock.lock();
+        try {
+            return product.tryReduceQuantity(amount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean reserveAll() {
+        List<Product> products = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            products.add(item.getProduct());
+        }
+        int[] stripes = lock(products);
+        try {
+            if (!validate()) {
+                return false;
+            }
+            commit();
+            if (!errors.isEmpty()) {
+                rollback();
+                return false;
+            }
+            return true;
+        } finally {
+            unlock(stripes);
+        }
+    }
+
+    static int[] lock(Collection<Product> products) {
+        int[] stripes = new int[products.size()];
+        int index = 0;
+        for (Product product : products) {
+            stripes[index++] = stripe(product);
+        }
+        Arrays.sort(stripes);
+        int count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            if (count == 0 || stripes[count - 1] != stripes[i]) {
+                stripes[count++] = stripes[i];
+            }
+        }
+        stripes = Arrays.copyOf(stripes, count);
+        for (int i = 0; i < count; i++) {
+            LOCKS[stripes[i]].lock();
+        }
+        return stripes;
+    }
+
+    static void unlock(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            LOCKS[stripes[i]].unlock();
+        }
+    }
+
+    static String shortage(Product product, int requested, int available) {
+        return String.format("%s: insufficient stock (requested %d, available %d)", product.getName(), requested,
+                available);
+    }
+
+    private boolean validate() {
+        for (CartItem item : items) {
+            Reservation reservation = item.getReservation();
+            if (!(reservation != null && reservation.getQuantity() == item.getQuantity() && reservation.isLive())
+                    && !item.getProduct().isAvailable(item.getQuantity())) {
+                addError(item);
+            }
+        }
+        return errors.isEmpty();
+    }
+
+    private void commit() {
+        for (CartItem item : items) {
+            Product product = item.getProduct();
+            Reservation reservation = item.getReservation();
+            if (reservation != null && reservation.getQuantity() == item.getQuantity() && reservation.consume()) {
+                consumed.add(reservation);
+                reserved.add(item);
+            } else if (product.tryReduceQuantity(item.getQuantity())) {
+                consumed.add(null);
+                reserved.add(item);
+            } else {
+                addError(item);
+            }
+        }
+    }
+
+    private void addError(CartItem item) {
+        errors.add(shortage(item.getProduct(), item.getQuantity(), item.getProduct().getQuantity()));
+    }
+
+    public void rollback() {
+        for (int i = 0; i < reserved.size(); i++) {
+            CartItem item = reserved.get(i);
+            Reservation reservation = consumed.get(i);
+            if (reservation != null) {
+                item.setReservation(reservation.getManager().hold(item.getProduct(), item.getQuantity()));
+            } else {
+                item.getProduct().increaseQuantity(item.getQuantity());
+            }
+        }
+        reserved.clear();
+        consumed.clear();
+    }
+
+    public List<String> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    private static int stripe(Product product) {
+        long id = product.getId();
+        return (int) (id ^ id >>> 32) * 0x9E3779B9 >>> 22;
+    }
+}
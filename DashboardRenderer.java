@@ -0,0 +1,198 @@
+import javax.swing.SwingUtilities;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class DashboardRenderer implements AutoCloseable {
+    private final Catalog catalog;
+    private final int pageSize;
+    private final ExecutorService executor;
+    private final AtomicLong latestRequest;
+    private final Map<Object, Section> cache;
+    private final TreeMap<Integer, Long> pageAnchors;
+    private final Metrics metrics;
+    private long anchorVersion = -1;
+
+    public DashboardRenderer(Catalog catalog, int pageSize) {
+        this(catalog, pageSize, null);
+    }
+
+    public DashboardRenderer(Catalog catalog, int pageSize, Metrics metrics) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        this.catalog = catalog;
+        this.pageSize = pageSize;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "dashboard-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.latestRequest = new AtomicLong();
+        this.cache = new WeakHashMap<>();
+        this.pageAnchors = new TreeMap<>();
+        this.metrics = metrics;
+    }
+
+    public void render(User user, int page, int catalogPage, Consumer<Page> callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback cannot be null");
+        }
+        long request = latestRequest.incrementAndGet();
+        executor.execute(() -> {
+            if (request != latestRequest.get()) {
+                return;
+            }
+            long start = System.nanoTime();
+            Page result = renderPage(user, Math.max(0, page), Math.max(0, catalogPage));
+            if (metrics != null) {
+                metrics.record(Metrics.Operation.DASHBOARD, start, true);
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (request == latestRequest.get()) {
+                    callback.accept(result);
+                }
+            });
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private Page renderPage(User user, int page, int catalogPage) {
+        if (user == null) {
+            return new Page("", 0, 1, 0, 1);
+        }
+        int items = user instanceof Buyer ? ((Buyer) user).getCartSize()
+                : user instanceof Seller ? ((Seller) user).getProductCount() : 0;
+        int pageCount = pageCount(items);
+        int current = Math.min(page, pageCount - 1);
+        int offset = current * pageSize;
+
+        StringBuilder text = new StringBuilder(4096);
+        long hour = SalesAnalytics.hourStart(System.currentTimeMillis());
+        text.append(section(user, user.getVersion(), hour, current, () -> user.getDashboard(offset, pageSize)))
+                .append("\n");
+        if (!(user instanceof Buyer)) {
+            return new Page(text.toString(), current, pageCount, 0, 1);
+        }
+        int catalogPageCount = pageCount(catalog.getAvailableProductCount());
+        int catalogCurrent = Math.min(catalogPage, catalogPageCount - 1);
+        long availability = catalog.getAvailabilityVersion();
+        if (availability != anchorVersion) {
+            pageAnchors.clear();
+            anchorVersion = availability;
+        }
+        text.append(section(catalog, catalog.getVersion(), 0, catalogCurrent,
+                () -> availableProducts(catalogCurrent, catalogCurrent * pageSize)));
+        return new Page(text.toString(), current, pageCount, catalogCurrent, catalogPageCount);
+    }
+
+    private int pageCount(int items) {
+        return Math.max(1, (items + pageSize - 1) / pageSize);
+    }
+
+    private String section(Object owner, long version, long hour, int page, Supplier<String> renderer) {
+        Section cached = cache.get(owner);
+        if (cached != null && cached.version == version && cached.hour == hour && cached.page == page) {
+            return cached.text;
+        }
+        String text = renderer.get();
+        cache.put(owner, new Section(version, hour, page, text));
+        return text;
+    }
+
+    private String availableProducts(int page, int offset) {
+        StringBuilder text = new StringBuilder(pageSize * 64);
+        int total = catalog.getAvailableProductCount();
+        text.append("\nAVAILABLE PRODUCTS");
+        if (total > pageSize) {
+            text.append(" (").append(Math.min(offset + 1, total)).append('-')
+                    .append(Math.min(total, offset + pageSize)).append(" of ").append(total).append(')');
+        }
+        text.append("\n");
+        NavigableMap<Long, Product> available = catalog.getAvailableProductsById();
+        Map.Entry<Integer, Long> anchor = pageAnchors.floorEntry(page);
+        Iterator<Product> products = anchor == null ? available.values().iterator()
+                : available.tailMap(anchor.getValue(), false).values().iterator();
+        int skip = (page - (anchor == null ? 0 : anchor.getKey())) * pageSize;
+        for (int skipped = 0; skipped < skip && products.hasNext(); skipped++) {
+            products.next();
+        }
+        int listed = 0;
+        while (listed < pageSize && products.hasNext()) {
+            Product p = products.next();
+            if (++listed == pageSize) {
+                pageAnchors.put(page + 1, p.getId());
+            }
+            text.append("- ").append(p.getName()).append(" by ").append(p.getSeller().getUsername()).append(": ₱");
+            Money.appendTo(text, p.getPriceCentavos()).append(" (Qty: ").append(p.getQuantity()).append(")\n");
+        }
+        if (listed == 0) {
+            text.append(offset == 0 ? "No products available.\n" : "No more products.\n");
+        }
+        return text.toString();
+    }
+
+    private static final class Section {
+        private final long version;
+        private final long hour;
+        private final int page;
+        private final String text;
+
+        private Section(long version, long hour, int page, String text) {
+            this.version = version;
+            this.hour = hour;
+            this.page = page;
+            this.text = text;
+        }
+    }
+
+    public static final class Page {
+        private final String text;
+        private final int page;
+        private final int pageCount;
+        private final int catalogPage;
+        private final int catalogPageCount;
+
+        private Page(String text, int page, int pageCount, int catalogPage, int catalogPageCount) {
+            this.text = text;
+            this.page = page;
+            this.pageCount = pageCount;
+            this.catalogPage = catalogPage;
+            this.catalogPageCount = catalogPageCount;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        public int getCatalogPage() {
+            return catalogPage;
+        }
+
+        public int getCatalogPageCount() {
+            return catalogPageCount;
+        }
+    }
+}
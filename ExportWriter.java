@@ -0,0 +1,239 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class ExportWriter implements AutoCloseable {
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private FileChannel channel;
+    private Path target;
+    private Path temp;
+    private long bytesWritten;
+
+    public ExportWriter(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE);
+        }
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public void open(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        if (channel != null) {
+            throw new IllegalStateException("Writer is already open");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        target = path;
+        temp = path.resolveSibling(path.getFileName() + ".tmp");
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.clear();
+        bytesWritten = 0;
+    }
+
+    public boolean isOpen() {
+        return channel != null;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            flush();
+            channel.force(true);
+        } finally {
+            channel.close();
+            channel = null;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void abort() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } finally {
+            channel = null;
+            buffer.clear();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public ExportWriter writeByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+        return this;
+    }
+
+    public ExportWriter writeInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+        return this;
+    }
+
+    public ExportWriter writeLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+        return this;
+    }
+
+    public ExportWriter writeVarLong(long value) throws IOException {
+        long zigzag = value << 1 ^ value >> 63;
+        ensure(10);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) (zigzag & 0x7F | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+        return this;
+    }
+
+    public ExportWriter writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            writeByte(text.charAt(i));
+        }
+        return this;
+    }
+
+    public ExportWriter writeUtf8(String text) throws IOException {
+        return writeUtf8(text, 0, text.length());
+    }
+
+    private ExportWriter writeUtf8(String text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                ensure(4);
+                buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeByte('?');
+            } else {
+                ensure(3);
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    public static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    public ExportWriter writeDecimal(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            return writeAscii(Long.toString(value));
+        }
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        ensure(count);
+        while (count > 0) {
+            buffer.put(digits[--count]);
+        }
+        return this;
+    }
+
+    public ExportWriter writeMoney(long centavos) throws IOException {
+        if (centavos < 0) {
+            writeByte('-');
+            centavos = -centavos;
+        }
+        writeDecimal(centavos / Money.CENTAVOS_PER_PESO);
+        long fraction = centavos % Money.CENTAVOS_PER_PESO;
+        ensure(3);
+        buffer.put((byte) '.').put((byte) ('0' + fraction / 10)).put((byte) ('0' + fraction % 10));
+        return this;
+    }
+
+    public ExportWriter writeCsvField(String text) throws IOException {
+        if (text == null) {
+            return this;
+        }
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return writeUtf8(text);
+        }
+        writeByte('"');
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                writeUtf8(text, start, i + 1);
+                writeByte('"');
+                start = i + 1;
+            }
+        }
+        writeUtf8(text, start, text.length());
+        return writeByte('"');
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (channel == null) {
+            throw new IllegalStateException("Writer is not open");
+        }
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
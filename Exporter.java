@@ -0,0 +1,370 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class Exporter implements AutoCloseable {
+    private static final int MAGIC = 0x4D4B5458;
+    private static final int VERSION = 1;
+    private static final int BLOCK_ROWS = 1 << 16;
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    public enum Format {
+        CSV(".csv"),
+        COLUMNAR(".mktc");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private enum Kind {
+        LONG,
+        INT,
+        MONEY,
+        STRING
+    }
+
+    private static final String[] PRODUCT_COLUMNS = {"id", "name", "price", "quantity", "seller"};
+    private static final Kind[] PRODUCT_KINDS = {Kind.LONG, Kind.STRING, Kind.MONEY, Kind.INT, Kind.STRING};
+    private static final String[] STOCK_COLUMNS = {"id", "quantity"};
+    private static final Kind[] STOCK_KINDS = {Kind.LONG, Kind.INT};
+    private static final String[] CART_COLUMNS = {"buyer", "product_id", "quantity", "unit_price", "total"};
+    private static final Kind[] CART_KINDS = {Kind.STRING, Kind.LONG, Kind.INT, Kind.MONEY, Kind.MONEY};
+    private static final String[] ORDER_COLUMNS = {"order_id", "timestamp", "buyer", "product_id", "seller", "quantity",
+            "unit_price", "total"};
+    private static final Kind[] ORDER_KINDS = {Kind.LONG, Kind.LONG, Kind.STRING, Kind.LONG, Kind.STRING, Kind.INT,
+            Kind.MONEY, Kind.MONEY};
+
+    private final ExportWriter writer;
+    private Format format;
+    private Kind[] kinds;
+    private int column;
+    private long rows;
+    private int blockRows;
+    private long[][] longBlocks = new long[0][];
+    private int[][] intBlocks = new int[0][];
+    private String[][] stringBlocks = new String[0][];
+    private Product[] cartProducts = new Product[16];
+    private int[] cartQuantities = new int[16];
+
+    public Exporter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public Exporter(int bufferSize) {
+        this.writer = new ExportWriter(bufferSize);
+    }
+
+    public synchronized long exportProducts(Catalog catalog, Path path, Format format) throws IOException {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        begin(path, format, PRODUCT_COLUMNS, PRODUCT_KINDS);
+        try {
+            for (Product product : catalog.getProducts()) {
+                putLong(product.getId());
+                putString(product.getName());
+                putMoney(product.getPriceCentavos());
+                putInt(product.getQuantity());
+                putString(product.getSeller().getUsername());
+                endRow();
+            }
+            return finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    public synchronized long exportStock(Catalog catalog, Path path, Format format) throws IOException {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        begin(path, format, STOCK_COLUMNS, STOCK_KINDS);
+        try {
+            for (Product product : catalog.getProducts()) {
+                putLong(product.getId());
+                putInt(product.getQuantity());
+                endRow();
+            }
+            return finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    public synchronized long exportCarts(Iterable<Buyer> buyers, Path path, Format format) throws IOException {
+        if (buyers == null) {
+            throw new IllegalArgumentException("Buyers cannot be null");
+        }
+        begin(path, format, CART_COLUMNS, CART_KINDS);
+        try {
+            for (Buyer buyer : buyers) {
+                int count = buyer.copyCartLines(cartProducts, cartQuantities);
+                while (count < 0) {
+                    cartProducts = new Product[Math.max(-count, cartProducts.length * 2)];
+                    cartQuantities = new int[cartProducts.length];
+                    count = buyer.copyCartLines(cartProducts, cartQuantities);
+                }
+                for (int i = 0; i < count; i++) {
+                    long unitPrice = cartProducts[i].getPriceCentavos();
+                    putString(buyer.getUsername());
+                    putLong(cartProducts[i].getId());
+                    putInt(cartQuantities[i]);
+                    putMoney(unitPrice);
+                    putMoney(Money.multiply(unitPrice, cartQuantities[i]));
+                    endRow();
+                }
+                Arrays.fill(cartProducts, 0, count, null);
+            }
+            return finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    public synchronized long exportOrders(OrderLedger ledger, Path path, Format format) throws IOException {
+        if (ledger == null) {
+            throw new IllegalArgumentException("Order ledger cannot be null");
+        }
+        begin(path, format, ORDER_COLUMNS, ORDER_KINDS);
+        try {
+            for (int s = 0; s < ledger.getSegmentCount(); s++) {
+                OrderLedger.Segment segment = ledger.getSegment(s);
+                int orderCount = segment.getOrderCount();
+                ByteBuffer orders = segment.getOrders();
+                ByteBuffer lines = segment.getLines();
+                for (int o = 0; o < orderCount; o++) {
+                    int base = o * OrderLedger.ORDER_BYTES;
+                    long id = segment.getFirstOrderId() + o;
+                    long timestamp = orders.getLong(base + OrderLedger.ORDER_TIMESTAMP);
+                    String buyer = ledger.getUser(orders.getInt(base + OrderLedger.ORDER_BUYER)).getUsername();
+                    int firstLine = orders.getInt(base + OrderLedger.ORDER_FIRST_LINE);
+                    int end = firstLine + orders.getInt(base + OrderLedger.ORDER_LINE_COUNT);
+                    for (int line = firstLine; line < end; line++) {
+                        int offset = line * OrderLedger.LINE_BYTES;
+                        long unitPrice = lines.getLong(offset + OrderLedger.LINE_UNIT_PRICE);
+                        int quantity = lines.getInt(offset + OrderLedger.LINE_QUANTITY);
+                        putLong(id);
+                        putLong(timestamp);
+                        putString(buyer);
+                        putLong(lines.getLong(offset + OrderLedger.LINE_PRODUCT));
+                        putString(ledger.getUser(lines.getInt(offset + OrderLedger.LINE_SELLER)).getUsername());
+                        putInt(quantity);
+                        putMoney(unitPrice);
+                        putMoney(Money.multiply(unitPrice, quantity));
+                        endRow();
+                    }
+                }
+            }
+            return finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    public synchronized long exportAll(Marketplace marketplace, Path directory, Format format) throws IOException {
+        if (marketplace == null) {
+            throw new IllegalArgumentException("Marketplace cannot be null");
+        }
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        Catalog catalog = marketplace.getCatalog();
+        long total = exportProducts(catalog, directory.resolve("products" + format.getExtension()), format);
+        total += exportStock(catalog, directory.resolve("stock" + format.getExtension()), format);
+        total += exportCarts(marketplace.getBuyers(), directory.resolve("carts" + format.getExtension()), format);
+        OrderLedger ledger = marketplace.getOrderLedger();
+        if (ledger != null) {
+            total += exportOrders(ledger, directory.resolve("orders" + format.getExtension()), format);
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.abort();
+    }
+
+    private void begin(Path path, Format format, String[] names, Kind[] kinds) throws IOException {
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        writer.open(path);
+        this.format = format;
+        this.kinds = kinds;
+        this.column = 0;
+        this.rows = 0;
+        this.blockRows = 0;
+        if (format == Format.CSV) {
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    writer.writeByte(',');
+                }
+                writer.writeAscii(names[i]);
+            }
+            writer.writeByte('\n');
+            return;
+        }
+        writer.writeInt(MAGIC).writeInt(VERSION).writeInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            writer.writeByte(kinds[i].ordinal()).writeByte(names[i].length()).writeAscii(names[i]);
+        }
+        if (longBlocks.length < names.length) {
+            longBlocks = Arrays.copyOf(longBlocks, names.length);
+            intBlocks = Arrays.copyOf(intBlocks, names.length);
+            stringBlocks = Arrays.copyOf(stringBlocks, names.length);
+        }
+        for (int i = 0; i < names.length; i++) {
+            if ((kinds[i] == Kind.LONG || kinds[i] == Kind.MONEY) && longBlocks[i] == null) {
+                longBlocks[i] = new long[BLOCK_ROWS];
+            } else if (kinds[i] == Kind.INT && intBlocks[i] == null) {
+                intBlocks[i] = new int[BLOCK_ROWS];
+            } else if (kinds[i] == Kind.STRING && stringBlocks[i] == null) {
+                stringBlocks[i] = new String[BLOCK_ROWS];
+            }
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        if (format == Format.CSV) {
+            separator();
+            writer.writeDecimal(value);
+        } else {
+            longBlocks[column][blockRows] = value;
+        }
+        column++;
+    }
+
+    private void putMoney(long centavos) throws IOException {
+        if (format == Format.CSV) {
+            separator();
+            writer.writeMoney(centavos);
+        } else {
+            longBlocks[column][blockRows] = centavos;
+        }
+        column++;
+    }
+
+    private void putInt(int value) throws IOException {
+        if (format == Format.CSV) {
+            separator();
+            writer.writeDecimal(value);
+        } else {
+            intBlocks[column][blockRows] = value;
+        }
+        column++;
+    }
+
+    private void putString(String value) throws IOException {
+        if (format == Format.CSV) {
+            separator();
+            writer.writeCsvField(value);
+        } else {
+            stringBlocks[column][blockRows] = value;
+        }
+        column++;
+    }
+
+    private void separator() throws IOException {
+        if (column > 0) {
+            writer.writeByte(',');
+        }
+    }
+
+    private void endRow() throws IOException {
+        column = 0;
+        rows++;
+        if (format == Format.CSV) {
+            writer.writeByte('\n');
+        } else if (++blockRows == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockRows == 0) {
+            return;
+        }
+        writer.writeInt(blockRows);
+        for (int c = 0; c < kinds.length; c++) {
+            switch (kinds[c]) {
+                case LONG:
+                case MONEY:
+                    long previous = 0;
+                    for (int r = 0; r < blockRows; r++) {
+                        writer.writeVarLong(longBlocks[c][r] - previous);
+                        previous = longBlocks[c][r];
+                    }
+                    break;
+                case INT:
+                    for (int r = 0; r < blockRows; r++) {
+                        writer.writeVarLong(intBlocks[c][r]);
+                    }
+                    break;
+                default:
+                    String[] strings = stringBlocks[c];
+                    for (int r = 0; r < blockRows; r++) {
+                        if (strings[r] == null) {
+                            writer.writeVarLong(-1);
+                        } else {
+                            writer.writeVarLong(ExportWriter.utf8Length(strings[r])).writeUtf8(strings[r]);
+                        }
+                        strings[r] = null;
+                    }
+            }
+        }
+        blockRows = 0;
+    }
+
+    private long finish() throws IOException {
+        if (format == Format.COLUMNAR) {
+            flushBlock();
+            writer.writeInt(0).writeLong(rows);
+        }
+        writer.close();
+        return rows;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: Exporter <name> [csv|columnar]");
+            System.exit(2);
+        }
+        Format format = args.length > 1 ? Format.valueOf(args[1].toUpperCase(Locale.ROOT)) : Format.CSV;
+        String server = System.getProperty("marketplace.url",
+                "http://127.0.0.1:" + Integer.getInteger("marketplace.port", 8080));
+        String body = "name=" + URLEncoder.encode(args[0], StandardCharsets.UTF_8) + "&format="
+                + format.name().toLowerCase(Locale.ROOT);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(server + "/admin/export"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            System.err.println("Export failed (" + response.statusCode() + "): " + response.body());
+            System.exit(1);
+        }
+        System.out.println(response.body());
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+public class InventoryStore {
+    private static final int PAGE_SHIFT = 14;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final Map<Seller, Integer> sellerSlots = new IdentityHashMap<>();
+    private Seller[] sellers = new Seller[16];
+    private int sellerCount;
+
+    private volatile Page[] pages = new Page[0];
+    private volatile int size;
+
+    private static final class Page {
+        private final AtomicLongArray prices = new AtomicLongArray(PAGE_SIZE);
+        private final AtomicIntegerArray quantities = new AtomicIntegerArray(PAGE_SIZE);
+        private final int[] sellerIndexes = new int[PAGE_SIZE];
+        private final AtomicReferenceArray<Product> products = new AtomicReferenceArray<>(PAGE_SIZE);
+    }
+
+    public synchronized void add(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        addLocked(product);
+    }
+
+    public synchronized void addAll(Collection<Product> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        ensureCapacity(size + batch.size());
+        for (Product product : batch) {
+            addLocked(product);
+        }
+    }
+
+    private void addLocked(Product product) {
+        if (product.getInventorySlot() >= 0) {
+            return;
+        }
+        int slot = size;
+        ensureCapacity(slot + 1);
+        Page page = pages[slot >>> PAGE_SHIFT];
+        int offset = slot & PAGE_MASK;
+        page.sellerIndexes[offset] = sellerSlot(product.getSeller());
+        page.products.set(offset, product);
+        product.setInventorySlot(slot);
+        update(product);
+        size = slot + 1;
+    }
+
+    private void ensureCapacity(int required) {
+        int pageCount = (required + PAGE_MASK) >>> PAGE_SHIFT;
+        if (pageCount > pages.length) {
+            Page[] grown = Arrays.copyOf(pages, Math.max(pages.length * 2, pageCount));
+            for (int i = pages.length; i < grown.length; i++) {
+                grown[i] = new Page();
+            }
+            pages = grown;
+        }
+    }
+
+    public void update(Product product) {
+        int slot = product.getInventorySlot();
+        if (slot < 0) {
+            return;
+        }
+        Page page = pages[slot >>> PAGE_SHIFT];
+        int offset = slot & PAGE_MASK;
+        if (page.products.get(offset) != product) {
+            return;
+        }
+        long price;
+        do {
+            price = product.getPriceCentavos();
+            page.prices.set(offset, price);
+        } while (price != product.getPriceCentavos());
+        int quantity;
+        do {
+            quantity = product.getQuantity();
+            page.quantities.set(offset, quantity);
+        } while (quantity != product.getQuantity());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int countInStock() {
+        int count = 0;
+        int end = size;
+        Page[] current = pages;
+        for (int i = 0; i < end; i++) {
+            if (current[i >>> PAGE_SHIFT].quantities.get(i & PAGE_MASK) > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long totalUnitsInStock() {
+        long total = 0;
+        int end = size;
+        Page[] current = pages;
+        for (int i = 0; i < end; i++) {
+            total += current[i >>> PAGE_SHIFT].quantities.get(i & PAGE_MASK);
+        }
+        return total;
+    }
+
+    public void forEachInStock(Consumer<Product> action) {
+        forEachInStockUnder(Long.MAX_VALUE, action);
+    }
+
+    public void forEachInStockUnder(long maxPriceCentavos, Consumer<Product> action) {
+        int end = size;
+        Page[] current = pages;
+        for (int i = 0; i < end; i++) {
+            Page page = current[i >>> PAGE_SHIFT];
+            int offset = i & PAGE_MASK;
+            if (page.quantities.get(offset) > 0 && page.prices.get(offset) <= maxPriceCentavos) {
+                action.accept(page.products.get(offset));
+            }
+        }
+    }
+
+    public void forEachInStock(Seller seller, Consumer<Product> action) {
+        Integer found = findSellerSlot(seller);
+        if (found == null) {
+            return;
+        }
+        int sellerSlot = found;
+        int end = size;
+        Page[] current = pages;
+        for (int i = 0; i < end; i++) {
+            Page page = current[i >>> PAGE_SHIFT];
+            int offset = i & PAGE_MASK;
+            if (page.sellerIndexes[offset] == sellerSlot && page.quantities.get(offset) > 0) {
+                action.accept(page.products.get(offset));
+            }
+        }
+    }
+
+    private synchronized Integer findSellerSlot(Seller seller) {
+        return sellerSlots.get(seller);
+    }
+
+    private int sellerSlot(Seller seller) {
+        Integer slot = sellerSlots.get(seller);
+        if (slot != null) {
+            return slot;
+        }
+        if (sellerCount == sellers.length) {
+            sellers = Arrays.copyOf(sellers, sellerCount * 2);
+        }
+        sellers[sellerCount] = seller;
+        sellerSlots.put(seller, sellerCount);
+        return sellerCount++;
+    }
+}
@@ -0,0 +1,601 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+public class Journal implements ProductListener, AutoCloseable {
+    static final byte SELLER_CREATED = 1;
+    static final byte BUYER_CREATED = 2;
+    static final byte PRODUCT_ADDED = 3;
+    static final byte PRODUCT_QUANTITY = 4;
+    static final byte PRODUCT_PRICE = 5;
+    static final byte PRODUCT_RENAMED = 6;
+    static final byte CART_LINE = 7;
+    static final byte CART_CLEARED = 8;
+    static final byte RESERVATION_EXPIRED = 9;
+    static final byte CHECKOUT = 10;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final int MAGIC = 0x4D4B544A;
+    private static final int VERSION = 3;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int HEADER_BYTES = 4 + 4 + 1 + 8 + 8 + 8 + 4;
+    private static final int SEGMENT_END = -1;
+    private static final int INVALID = -2;
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final long DEFAULT_FLUSH_MILLIS = 20;
+
+    private final Path path;
+    private final long segmentBytes;
+    private final ScheduledExecutorService flusher;
+    private final List<MappedByteBuffer> unflushed;
+    private final CRC32C appendChecksum = new CRC32C();
+    private final ThreadLocal<Set<Product>> checkoutChanges = new ThreadLocal<>();
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private volatile boolean dirty;
+
+    public Journal(Path path) throws IOException {
+        this(path, DEFAULT_SEGMENT_BYTES, DEFAULT_FLUSH_MILLIS);
+    }
+
+    public Journal(Path path, long segmentBytes, long flushMillis) throws IOException {
+        if (segmentBytes < 4096 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 4 KiB and 2 GiB");
+        }
+        if (flushMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be greater than 0");
+        }
+        if (Files.exists(path) && !Files.isDirectory(path)) {
+            throw new IOException("Unsupported journal format: " + path);
+        }
+        this.path = path;
+        this.segmentBytes = segmentBytes;
+        this.unflushed = new ArrayList<>();
+        Files.createDirectories(path);
+        List<Long> starts = segmentStarts();
+        if (starts.isEmpty()) {
+            openSegmentAt(0);
+        } else {
+            openSegmentAt(findEnd(starts.get(starts.size() - 1)));
+            clearTail();
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized long getPosition() {
+        return segmentStart + segment.position();
+    }
+
+    public void recordSellerCreated(Seller seller) {
+        append(SELLER_CREATED, seller.getId(), 0, 0, 0, seller.getUsername(), seller.getEmail());
+    }
+
+    public void recordBuyerCreated(Buyer buyer) {
+        append(BUYER_CREATED, buyer.getId(), 0, 0, 0, buyer.getUsername(), buyer.getEmail());
+    }
+
+    public void recordCartLine(Buyer buyer, Product product, int quantity, long reservationId) {
+        append(CART_LINE, buyer.getId(), product.getId(), reservationId, quantity, null, null);
+    }
+
+    public void recordCartCleared(Buyer buyer) {
+        append(CART_CLEARED, buyer.getId(), 0, 0, 0, null, null);
+    }
+
+    public void recordCheckout(Buyer buyer, Collection<CartItem> items) {
+        recordCheckouts(List.of(buyer), List.of(items));
+    }
+
+    synchronized void recordCheckouts(List<Buyer> buyers, List<? extends Collection<CartItem>> orders) {
+        Set<Product> changed = checkoutChanges.get();
+        Collection<Product> products = changed == null ? List.of() : changed;
+        int size = 4 + products.size() * 12 + 4;
+        for (Collection<CartItem> items : orders) {
+            size += 12 + items.size() * 20;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size);
+        payload.putInt(products.size());
+        for (Product product : products) {
+            payload.putLong(product.getId()).putInt(product.getQuantity());
+        }
+        payload.putInt(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Collection<CartItem> items = orders.get(i);
+            payload.putLong(buyers.get(i).getId()).putInt(items.size());
+            for (CartItem item : items) {
+                payload.putLong(item.getProduct().getId())
+                        .putInt(item.getQuantity())
+                        .putLong(item.getUnitPriceCentavos());
+            }
+        }
+        append(CHECKOUT, 0, 0, System.currentTimeMillis(), 0, null, null, payload.flip());
+        if (changed != null) {
+            changed.clear();
+        }
+    }
+
+    void beginCheckout() {
+        checkoutChanges.set(new LinkedHashSet<>());
+    }
+
+    void endCheckout() {
+        Set<Product> changed = checkoutChanges.get();
+        checkoutChanges.remove();
+        if (changed != null && !changed.isEmpty()) {
+            synchronized (this) {
+                changed.forEach(this::appendQuantity);
+            }
+        }
+    }
+
+    public void recordReservationExpired(Reservation reservation) {
+        append(RESERVATION_EXPIRED, 0, reservation.getProduct().getId(), reservation.getId(), 0, null, null);
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        append(PRODUCT_ADDED, product.getSeller().getId(), product.getId(), product.getPriceCentavos(),
+                product.getQuantity(), product.getName(), null);
+    }
+
+    @Override
+    public void nameChanged(Product product, String oldName) {
+        synchronized (this) {
+            append(PRODUCT_RENAMED, 0, product.getId(), 0, 0, product.getName(), null);
+        }
+    }
+
+    @Override
+    public void priceChanged(Product product, long oldPriceCentavos) {
+        synchronized (this) {
+            append(PRODUCT_PRICE, 0, product.getId(), product.getPriceCentavos(), 0, null, null);
+        }
+    }
+
+    @Override
+    public void quantityChanged(Product product, int oldQuantity, int newQuantity) {
+        Set<Product> changed = checkoutChanges.get();
+        if (changed != null) {
+            changed.add(product);
+            return;
+        }
+        synchronized (this) {
+            appendQuantity(product);
+        }
+    }
+
+    private void appendQuantity(Product product) {
+        append(PRODUCT_QUANTITY, 0, product.getId(), 0, product.getQuantity(), null, null);
+    }
+
+    public void recover(Marketplace marketplace) throws IOException {
+        recover(marketplace, 0);
+    }
+
+    public void recover(Marketplace marketplace, Snapshot snapshot) throws IOException {
+        Replay replay = new Replay(marketplace);
+        snapshot.getHeldLines().forEach(line -> replay.trackHold(line.buyer, line.product, line.quantity,
+                line.reservationId));
+        replay(replay, snapshot.getJournalPosition());
+    }
+
+    public void recover(Marketplace marketplace, long fromPosition) throws IOException {
+        replay(new Replay(marketplace), fromPosition);
+    }
+
+    private void replay(Replay replay, long fromPosition) throws IOException {
+        Marketplace marketplace = replay.marketplace;
+        long end = getPosition();
+        long oldest = segmentStarts().get(0);
+        if (fromPosition < oldest) {
+            throw new IOException("Journal " + path + " starts at " + oldest + ", cannot replay from " + fromPosition);
+        }
+        long position = fromPosition;
+
+        while (position < end) {
+            long start = position - position % segmentBytes;
+            MappedByteBuffer view = mapSegment(start);
+            view.position((int) Math.max(position - start, FILE_HEADER_BYTES));
+            while (start + view.position() < end) {
+                int length = recordLength(view);
+                if (length <= 0) {
+                    break;
+                }
+                int next = view.position() + length;
+                view.position(view.position() + 8);
+                byte type = view.get();
+                long owner = view.getLong();
+                long id = view.getLong();
+                long amount = view.getLong();
+                int quantity = view.getInt();
+                String first = readString(view);
+                String second = readString(view);
+                if (type == CHECKOUT) {
+                    replay.applyCheckout(amount, view);
+                } else {
+                    replay.apply(type, owner, id, amount, quantity, first, second);
+                }
+                view.position(next);
+            }
+            position = start + segmentBytes;
+        }
+
+        Reservation.advanceIdsPast(replay.maxReservationId);
+        marketplace.attachJournal(this);
+        replay.releaseOrphanedHolds();
+    }
+
+    public void flush() {
+        List<MappedByteBuffer> pending;
+        MappedByteBuffer current;
+        synchronized (this) {
+            if (!dirty && unflushed.isEmpty()) {
+                return;
+            }
+            dirty = false;
+            pending = new ArrayList<>(unflushed);
+            unflushed.clear();
+            current = segment;
+        }
+        pending.forEach(MappedByteBuffer::force);
+        current.force();
+    }
+
+    public void truncateBefore(long position) throws IOException {
+        flush();
+        long keep;
+        synchronized (this) {
+            keep = Math.min(position - position % segmentBytes, segmentStart);
+        }
+        for (long start : segmentStarts()) {
+            if (start < keep) {
+                Files.deleteIfExists(segmentPath(start));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private void append(byte type, long owner, long id, long amount, int quantity, String first, String second) {
+        append(type, owner, id, amount, quantity, first, second, null);
+    }
+
+    private synchronized void append(byte type, long owner, long id, long amount, int quantity, String first,
+            String second, ByteBuffer payload) {
+        byte[] firstBytes = first == null ? null : first.getBytes(StandardCharsets.UTF_8);
+        byte[] secondBytes = second == null ? null : second.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_BYTES + stringBytes(firstBytes) + stringBytes(secondBytes)
+                + (payload == null ? 0 : payload.remaining());
+        if (length + 4 > segmentBytes) {
+            throw new IllegalArgumentException("Journal record too large");
+        }
+        if (segment.remaining() < length + 4) {
+            segment.putInt(SEGMENT_END);
+            unflushed.add(segment);
+            openSegmentAt(segmentStart + segmentBytes);
+        }
+        int offset = segment.position();
+        segment.putInt(length)
+                .putInt(0)
+                .put(type)
+                .putLong(owner)
+                .putLong(id)
+                .putLong(amount)
+                .putInt(quantity);
+        writeString(firstBytes);
+        writeString(secondBytes);
+        if (payload != null) {
+            segment.put(payload);
+        }
+        segment.putInt(offset + 4, checksum(appendChecksum, segment, offset, length));
+        dirty = true;
+    }
+
+    private final class Replay {
+        private final Marketplace marketplace;
+        private final Catalog catalog;
+        private final Map<Long, Seller> sellers;
+        private final Map<Long, Buyer> buyers;
+        private final Map<Long, HeldLine> heldLines;
+        private final Map<Buyer, Map<Long, HeldLine>> heldLinesByBuyer;
+        private long maxReservationId;
+
+        private Replay(Marketplace marketplace) {
+            this.marketplace = marketplace;
+            this.catalog = marketplace.getCatalog();
+            this.sellers = new HashMap<>();
+            this.buyers = new HashMap<>();
+            this.heldLines = new HashMap<>();
+            this.heldLinesByBuyer = new HashMap<>();
+            marketplace.getSellers().forEach(s -> sellers.put(s.getId(), s));
+            marketplace.getBuyers().forEach(b -> buyers.put(b.getId(), b));
+        }
+
+        private void apply(byte type, long owner, long id, long amount, int quantity, String first,
+                String second) {
+            Product product;
+            Buyer buyer;
+            switch (type) {
+                case SELLER_CREATED:
+                    sellers.computeIfAbsent(owner, key -> marketplace.restoreSeller(key, first, second));
+                    break;
+                case BUYER_CREATED:
+                    buyers.computeIfAbsent(owner, key -> marketplace.restoreBuyer(key, first, second));
+                    break;
+                case PRODUCT_ADDED:
+                    Seller seller = sellers.get(owner);
+                    if (seller != null && catalog.getProduct(id) == null) {
+                        product = new Product(id, first, amount, Math.max(quantity, 1), seller);
+                        seller.addProduct(product);
+                        if (quantity == 0) {
+                            product.setQuantity(0);
+                        }
+                    }
+                    break;
+                case PRODUCT_QUANTITY:
+                    product = catalog.getProduct(id);
+                    if (product != null) {
+                        product.setQuantity(quantity);
+                    }
+                    break;
+                case PRODUCT_PRICE:
+                    product = catalog.getProduct(id);
+                    if (product != null) {
+                        product.setPriceCentavos(amount);
+                    }
+                    break;
+                case PRODUCT_RENAMED:
+                    product = catalog.getProduct(id);
+                    if (product != null) {
+                        product.setName(first);
+                    }
+                    break;
+                case CART_LINE:
+                    product = catalog.getProduct(id);
+                    buyer = buyers.get(owner);
+                    if (product != null && buyer != null) {
+                        buyer.restoreCartLine(product, quantity);
+                        trackHold(buyer, product, quantity, amount);
+                    }
+                    break;
+                case CART_CLEARED:
+                    buyer = buyers.get(owner);
+                    if (buyer != null) {
+                        clearCart(buyer);
+                    }
+                    break;
+                case RESERVATION_EXPIRED:
+                    maxReservationId = Math.max(maxReservationId, amount);
+                    HeldLine expired = heldLines.remove(amount);
+                    if (expired != null) {
+                        heldLinesByBuyer.get(expired.buyer).remove(expired.product.getId());
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Corrupt journal record type " + type);
+            }
+        }
+
+        private void applyCheckout(long timestamp, ByteBuffer payload) {
+            int productCount = payload.getInt();
+            for (int i = 0; i < productCount; i++) {
+                Product product = catalog.getProduct(payload.getLong());
+                int quantity = payload.getInt();
+                if (product != null) {
+                    product.setQuantity(quantity);
+                }
+            }
+            int orderCount = payload.getInt();
+            for (int i = 0; i < orderCount; i++) {
+                Buyer buyer = buyers.get(payload.getLong());
+                int lineCount = payload.getInt();
+                List<CartItem> items = new ArrayList<>(lineCount);
+                for (int j = 0; j < lineCount; j++) {
+                    Product product = catalog.getProduct(payload.getLong());
+                    int quantity = payload.getInt();
+                    long unitPriceCentavos = payload.getLong();
+                    if (product != null) {
+                        CartItem item = new CartItem(product, quantity);
+                        item.setUnitPriceCentavos(unitPriceCentavos);
+                        items.add(item);
+                    }
+                }
+                if (buyer == null) {
+                    continue;
+                }
+                OrderLedger ledger = marketplace.getOrderLedger();
+                if (ledger != null && !items.isEmpty()) {
+                    ledger.record(buyer, items, timestamp);
+                }
+                clearCart(buyer);
+            }
+        }
+
+        private void clearCart(Buyer buyer) {
+            buyer.clearCart();
+            Map<Long, HeldLine> lines = heldLinesByBuyer.remove(buyer);
+            if (lines != null) {
+                lines.values().forEach(line -> heldLines.remove(line.reservationId));
+            }
+        }
+
+        private void trackHold(Buyer buyer, Product product, int quantity, long reservationId) {
+            maxReservationId = Math.max(maxReservationId, reservationId);
+            Map<Long, HeldLine> lines = heldLinesByBuyer.computeIfAbsent(buyer, b -> new HashMap<>());
+            HeldLine line = reservationId == 0 || quantity == 0
+                    ? null
+                    : new HeldLine(buyer, product, quantity, reservationId);
+            HeldLine previous = line == null ? lines.remove(product.getId()) : lines.put(product.getId(), line);
+            if (previous != null) {
+                heldLines.remove(previous.reservationId);
+            }
+            if (line != null) {
+                heldLines.put(reservationId, line);
+            }
+        }
+
+        private void releaseOrphanedHolds() {
+            for (HeldLine line : heldLines.values()) {
+                line.product.increaseQuantity(line.quantity);
+                recordCartLine(line.buyer, line.product, line.quantity, 0);
+            }
+        }
+    }
+
+    static final class HeldLine {
+        private final Buyer buyer;
+        private final Product product;
+        private final int quantity;
+        private final long reservationId;
+
+        HeldLine(Buyer buyer, Product product, int quantity, long reservationId) {
+            this.buyer = buyer;
+            this.product = product;
+            this.quantity = quantity;
+            this.reservationId = reservationId;
+        }
+    }
+
+    private void writeString(byte[] bytes) {
+        if (bytes == null) {
+            segment.putInt(-1);
+        } else {
+            segment.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static int stringBytes(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static String readString(MappedByteBuffer view) {
+        int length = view.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long findEnd(long start) throws IOException {
+        MappedByteBuffer view = mapSegment(start);
+        view.position(FILE_HEADER_BYTES);
+        int length;
+        while ((length = recordLength(view)) > 0) {
+            view.position(view.position() + length);
+        }
+        return length == SEGMENT_END ? start + segmentBytes : start + view.position();
+    }
+
+    private List<Long> segmentStarts() throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                starts.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(starts);
+        return starts;
+    }
+
+    private Path segmentPath(long start) {
+        return path.resolve(String.format("%s%020d%s", PREFIX, start, SUFFIX));
+    }
+
+    private MappedByteBuffer mapSegment(long start) throws IOException {
+        MappedByteBuffer view;
+        try (FileChannel channel = FileChannel.open(segmentPath(start), StandardOpenOption.READ)) {
+            view = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(segmentBytes, channel.size()));
+        }
+        if (view.limit() < FILE_HEADER_BYTES || view.getInt(0) != MAGIC || view.getInt(4) != VERSION) {
+            throw new IOException("Unsupported journal format: " + segmentPath(start));
+        }
+        return view;
+    }
+
+    private static int recordLength(ByteBuffer view) {
+        int offset = view.position();
+        if (view.remaining() < 4) {
+            return 0;
+        }
+        int length = view.getInt(offset);
+        if (length == 0 || length == SEGMENT_END) {
+            return length;
+        }
+        if (length < HEADER_BYTES || length > view.remaining() - 4) {
+            return INVALID;
+        }
+        return view.getInt(offset + 4) == checksum(new CRC32C(), view, offset, length) ? length : INVALID;
+    }
+
+    private static int checksum(CRC32C checksum, ByteBuffer buffer, int offset, int length) {
+        ByteBuffer body = buffer.duplicate();
+        body.limit(offset + length).position(offset + 8);
+        checksum.reset();
+        checksum.update(body);
+        return (int) checksum.getValue();
+    }
+
+    private void clearTail() {
+        for (int i = segment.position(); i < segment.limit(); i++) {
+            if (segment.get(i) != 0) {
+                for (int j = i; j < segment.limit(); j++) {
+                    segment.put(j, (byte) 0);
+                }
+                dirty = true;
+                return;
+            }
+        }
+    }
+
+    private void openSegmentAt(long position) {
+        long start = position - position % segmentBytes;
+        try (FileChannel channel = FileChannel.open(segmentPath(start), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (segment.getLong(0) == 0) {
+            segment.putInt(0, MAGIC).putInt(4, VERSION);
+            dirty = true;
+        }
+        segmentStart = start;
+        segment.position((int) Math.max(position - start, FILE_HEADER_BYTES));
+    }
+}
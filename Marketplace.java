@@ -0,0 +1,270 @@
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class Marketplace implements AutoCloseable {
+    private final Catalog catalog;
+    private final UserRegistry registry;
+    private final List<Buyer> buyers;
+    private volatile ReservationManager reservationManager;
+    private volatile OrderSequencer orderSequencer;
+    private volatile Journal journal;
+    private volatile OrderLedger orderLedger;
+    private volatile SalesAnalytics salesAnalytics;
+    private volatile Metrics metrics;
+    private volatile IOException snapshotFailure;
+    private ScheduledExecutorService snapshotter;
+
+    public Marketplace() {
+        this.catalog = new Catalog();
+        this.registry = new UserRegistry();
+        this.buyers = registry.getBuyers();
+        this.orderLedger = new OrderLedger(catalog);
+        this.salesAnalytics = new SalesAnalytics(orderLedger);
+    }
+
+    public static Marketplace fromSystemProperties() throws IOException {
+        Marketplace marketplace = new Marketplace();
+        if (Boolean.parseBoolean(System.getProperty("marketplace.metrics", "true"))) {
+            Metrics metrics = new Metrics();
+            marketplace.setMetrics(metrics);
+            try {
+                metrics.registerMBeans();
+            } catch (JMException e) {
+                throw new IOException("Could not register metrics MBeans", e);
+            }
+        }
+        long reservationTtlSeconds = Long.getLong("marketplace.reservationTtlSeconds", 0);
+        if (reservationTtlSeconds > 0) {
+            marketplace.setReservationManager(new ReservationManager(reservationTtlSeconds * 1000));
+        }
+        String orderSpillDir = System.getProperty("marketplace.orderSpillDir");
+        if (orderSpillDir != null && !orderSpillDir.trim().isEmpty()) {
+            marketplace.setOrderLedger(new OrderLedger(marketplace.getCatalog(), Path.of(orderSpillDir.trim()),
+                    Integer.getInteger("marketplace.orderResidentSegments", 64)));
+        }
+        if (Boolean.getBoolean("marketplace.sequencedCheckout")) {
+            marketplace.setOrderSequencer(new OrderSequencer());
+        }
+        String journalPath = System.getProperty("marketplace.journal");
+        if (journalPath != null && !journalPath.trim().isEmpty()) {
+            Journal journal = new Journal(Path.of(journalPath.trim()));
+            String snapshotDir = System.getProperty("marketplace.snapshotDir");
+            if (snapshotDir != null && !snapshotDir.trim().isEmpty()) {
+                Path directory = Path.of(snapshotDir.trim());
+                Path latest = Snapshot.findLatest(directory);
+                if (latest != null) {
+                    journal.recover(marketplace, Snapshot.load(latest, marketplace));
+                } else {
+                    journal.recover(marketplace);
+                }
+                long intervalSeconds = Long.getLong("marketplace.snapshotIntervalSeconds", 600);
+                marketplace.startSnapshots(directory, intervalSeconds * 1000);
+            } else {
+                journal.recover(marketplace);
+            }
+        }
+        return marketplace;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public Seller createSeller(String username, String email) {
+        return register(new Seller(username, email));
+    }
+
+    Seller restoreSeller(long id, String username, String email) {
+        return register(new Seller(id, username, email));
+    }
+
+    private Seller register(Seller seller) {
+        seller.setMetrics(metrics);
+        seller.setSalesAnalytics(salesAnalytics);
+        registry.register(seller);
+        catalog.addSeller(seller);
+        Journal current = journal;
+        if (current != null) {
+            current.recordSellerCreated(seller);
+        }
+        return seller;
+    }
+
+    public Buyer createBuyer(String username, String email) {
+        return register(new Buyer(username, email));
+    }
+
+    Buyer restoreBuyer(long id, String username, String email) {
+        return register(new Buyer(id, username, email));
+    }
+
+    private Buyer register(Buyer buyer) {
+        buyer.setReservationManager(reservationManager);
+        buyer.setOrderSequencer(orderSequencer);
+        buyer.setJournal(journal);
+        buyer.setOrderLedger(orderLedger);
+        buyer.setMetrics(metrics);
+        registry.register(buyer);
+        Journal current = journal;
+        if (current != null) {
+            current.recordBuyerCreated(buyer);
+        }
+        return buyer;
+    }
+
+    public List<Seller> getSellers() {
+        return catalog.getSellers();
+    }
+
+    public List<Buyer> getBuyers() {
+        return buyers;
+    }
+
+    public UserRegistry getUserRegistry() {
+        return registry;
+    }
+
+    public Seller findSeller(String username) {
+        return registry.findSeller(username);
+    }
+
+    public Buyer findBuyer(String username) {
+        return registry.findBuyer(username);
+    }
+
+    public ReservationManager getReservationManager() {
+        return reservationManager;
+    }
+
+    public void setReservationManager(ReservationManager reservationManager) {
+        this.reservationManager = reservationManager;
+        if (reservationManager != null) {
+            reservationManager.setJournal(journal);
+        }
+        buyers.forEach(b -> b.setReservationManager(reservationManager));
+    }
+
+    public OrderSequencer getOrderSequencer() {
+        return orderSequencer;
+    }
+
+    public void setOrderSequencer(OrderSequencer orderSequencer) {
+        this.orderSequencer = orderSequencer;
+        if (orderSequencer != null) {
+            orderSequencer.setJournal(journal);
+        }
+        buyers.forEach(b -> b.setOrderSequencer(orderSequencer));
+    }
+
+    public OrderLedger getOrderLedger() {
+        return orderLedger;
+    }
+
+    public void setOrderLedger(OrderLedger orderLedger) {
+        this.orderLedger = orderLedger;
+        if (orderLedger != null) {
+            orderLedger.setMetrics(metrics);
+        }
+        this.salesAnalytics = orderLedger == null ? null : new SalesAnalytics(orderLedger);
+        buyers.forEach(b -> b.setOrderLedger(orderLedger));
+        getSellers().forEach(s -> s.setSalesAnalytics(salesAnalytics));
+    }
+
+    public SalesAnalytics getSalesAnalytics() {
+        return salesAnalytics;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        if (orderLedger != null) {
+            orderLedger.setMetrics(metrics);
+        }
+        getSellers().forEach(s -> s.setMetrics(metrics));
+        buyers.forEach(b -> b.setMetrics(metrics));
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public void attachJournal(Journal journal) {
+        if (this.journal != null) {
+            throw new IllegalStateException("Marketplace already has a journal");
+        }
+        this.journal = journal;
+        catalog.addListener(journal);
+        if (reservationManager != null) {
+            reservationManager.setJournal(journal);
+        }
+        if (orderSequencer != null) {
+            orderSequencer.setJournal(journal);
+        }
+        buyers.forEach(b -> b.setJournal(journal));
+    }
+
+    public IOException getSnapshotFailure() {
+        return snapshotFailure;
+    }
+
+    public synchronized void startSnapshots(Path directory, long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be greater than 0");
+        }
+        if (snapshotter != null) {
+            throw new IllegalStateException("Snapshots already scheduled");
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "marketplace-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(() -> {
+            try {
+                Journal current = journal;
+                long position = current == null ? 0 : current.getPosition();
+                Path written = Snapshot.write(this, directory);
+                Snapshot.deleteOlderThan(directory, written);
+                if (current != null) {
+                    current.truncateBefore(position);
+                }
+            } catch (IOException e) {
+                snapshotFailure = e;
+                Metrics current = metrics;
+                if (current != null) {
+                    current.recordStorageFailure("snapshot");
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+        if (reservationManager != null) {
+            reservationManager.shutdown();
+        }
+        if (orderSequencer != null) {
+            orderSequencer.close();
+        }
+        try {
+            if (orderLedger != null) {
+                orderLedger.close();
+            }
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+}
@@ -1,11 +1,22 @@
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.plaf.basic.ComboPopup;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class MarketplaceApplication extends JFrame {
-    private List<Seller> sellers;
-    private List<Buyer> buyers;
+    private static final int USER_PAGE_SIZE = 200;
+
+    private final Marketplace marketplace;
+    private final Catalog catalog;
+    private final DashboardRenderer dashboardRenderer;
+    private final ProductImporter productImporter;
     private Seller currentSeller;
     private Buyer currentBuyer;
     private User currentUser;
@@ -15,17 +26,29 @@ public class MarketplaceApplication extends JFrame {
     private JPanel actionPanel;
     private JPanel displayPanel;
     private JTextArea displayArea;
+    private JLabel pageLabel;
+    private JButton previousPageBtn;
+    private JButton nextPageBtn;
+    private JLabel catalogPageLabel;
+    private JButton previousCatalogPageBtn;
+    private JButton nextCatalogPageBtn;
+    private int dashboardPage;
+    private int catalogPage;
     private CardLayout actionCardLayout;
     private JPanel actionCardContainer;
-    private JList<Product> buyerProductList;
-    private DefaultListModel<Product> productListModel;
+    private JTable buyerProductTable;
+    private ProductListModel productListModel;
+    private ProductTableModel productTableModel;
     private CardLayout userCardLayout;
     private JPanel userCardContainer;
     private JComboBox<User> userCombo;
+    private UserComboBoxModel userComboModel;
 
-    public MarketplaceApplication() {
-        sellers = new ArrayList<>();
-        buyers = new ArrayList<>();
+    public MarketplaceApplication(Marketplace marketplace) {
+        this.marketplace = marketplace;
+        this.catalog = marketplace.getCatalog();
+        this.dashboardRenderer = new DashboardRenderer(catalog, 50, marketplace.getMetrics());
+        this.productImporter = new ProductImporter();
 
         setTitle("Online Marketplace");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -86,8 +109,8 @@ public class MarketplaceApplication extends JFrame {
 
         createAccountBtn.addActionListener(e -> userCardLayout.show(userCardContainer, "CREATE"));
         chooseAccountBtn.addActionListener(e -> {
-            if (userCombo != null) {
-                refreshUserCombo(userCombo);
+            if (userComboModel != null) {
+                userComboModel.refresh();
             }
             userCardLayout.show(userCardContainer, "CHOOSE");
         });
@@ -122,17 +145,14 @@ public class MarketplaceApplication extends JFrame {
                 String username = nameField.getText().trim();
                 String email = emailField.getText().trim();
 
-                User user;
                 if ("Seller".equals(type)) {
-                    user = new Seller(username, email);
-                    sellers.add((Seller) user);
+                    marketplace.createSeller(username, email);
                 } else {
-                    user = new Buyer(username, email);
-                    buyers.add((Buyer) user);
+                    marketplace.createBuyer(username, email);
                 }
 
-                if (userCombo != null) {
-                    refreshUserCombo(userCombo);
+                if (userComboModel != null) {
+                    userComboModel.refresh();
                 }
                 showMessage("Account created: " + username);
                 nameField.setText("");
@@ -176,17 +196,72 @@ public class MarketplaceApplication extends JFrame {
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(5, 5, 5, 5);
 
-        userCombo = new JComboBox<>();
+        userComboModel = new UserComboBoxModel(marketplace.getUserRegistry(), USER_PAGE_SIZE);
+        userCombo = new JComboBox<User>(userComboModel) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void setSelectedItem(Object item) {
+                if (item == null || item instanceof User) {
+                    userComboModel.setSelectedItem(item);
+                }
+            }
+
+            @Override
+            public int getSelectedIndex() {
+                return userComboModel.getSelectedIndex();
+            }
+        };
         userCombo.setPreferredSize(new Dimension(250, 25));
+        userCombo.setPrototypeDisplayValue(new Buyer("prototype-account-name", "prototype@example.com"));
+        userCombo.setMaximumRowCount(12);
+        Object popup = userCombo.getAccessibleContext().getAccessibleChild(0);
+        if (popup instanceof ComboPopup) {
+            ((ComboPopup) popup).getList().setPrototypeCellValue(userCombo.getPrototypeDisplayValue());
+        }
+
+        JTextField filterField = new JTextField(20);
+        Timer filterDebounce = new Timer(150, e -> userComboModel.setFilter(filterField.getText()));
+        filterDebounce.setRepeats(false);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterDebounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterDebounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterDebounce.restart();
+            }
+        });
         userCombo.setRenderer(new DefaultListCellRenderer() {
+            private final Map<Long, String[]> labels = new LinkedHashMap<Long, String[]>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, String[]> eldest) {
+                    return size() > USER_PAGE_SIZE;
+                }
+            };
+
             @Override
             public Component getListCellRendererComponent(JList<?> list, Object value, int index,
                     boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
                 if (value instanceof User) {
                     User user = (User) value;
-                    String role = user instanceof Seller ? " (Seller)" : " (Buyer)";
-                    setText(user.getUsername() + role);
+                    String[] label = labels.get(user.getId());
+                    if (label == null || label[0] != user.getUsername()) {
+                        String role = user instanceof Seller ? " (Seller)" : " (Buyer)";
+                        label = new String[] {user.getUsername(), user.getUsername() + role};
+                        labels.put(user.getId(), label);
+                    }
+                    setText(label[1]);
                 }
                 return this;
             }
@@ -199,6 +274,8 @@ public class MarketplaceApplication extends JFrame {
             User selected = (User) userCombo.getSelectedItem();
             if (selected != null) {
                 currentUser = selected;
+                dashboardPage = 0;
+                catalogPage = 0;
                 if (selected instanceof Seller) {
                     currentSeller = (Seller) selected;
                     currentBuyer = null;
@@ -216,13 +293,17 @@ public class MarketplaceApplication extends JFrame {
 
         gbc.gridx = 0;
         gbc.gridy = 0;
-        panel.add(new JLabel("Select Account:"), gbc);
+        panel.add(new JLabel("Search Accounts:"), gbc);
         gbc.gridy = 1;
-        panel.add(userCombo, gbc);
+        panel.add(filterField, gbc);
         gbc.gridy = 2;
+        panel.add(new JLabel("Select Account:"), gbc);
+        gbc.gridy = 3;
+        panel.add(userCombo, gbc);
+        gbc.gridy = 4;
         gbc.anchor = GridBagConstraints.CENTER;
         panel.add(selectBtn, gbc);
-        gbc.gridy = 3;
+        gbc.gridy = 5;
         panel.add(backBtn, gbc);
 
         return panel;
@@ -265,6 +346,7 @@ public class MarketplaceApplication extends JFrame {
         JLabel qtyLabel = new JLabel("Quantity:");
         JTextField qtyField = new JTextField(10);
         JButton uploadBtn = new JButton("Create Product");
+        JButton importBtn = new JButton("Import File...");
 
         uploadBtn.addActionListener(e -> {
             try {
@@ -282,7 +364,6 @@ public class MarketplaceApplication extends JFrame {
                 nameField.setText("");
                 priceField.setText("");
                 qtyField.setText("");
-                refreshProductList();
                 updateDisplay();
             } catch (NumberFormatException ex) {
                 showError("Invalid number format");
@@ -306,6 +387,39 @@ public class MarketplaceApplication extends JFrame {
         panel.add(qtyField, gbc);
         gbc.gridx = 6;
         panel.add(uploadBtn, gbc);
+        gbc.gridx = 7;
+        panel.add(importBtn, gbc);
+
+        importBtn.addActionListener(e -> {
+            if (currentSeller == null) {
+                showError("Please select a seller first");
+                return;
+            }
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            Seller seller = currentSeller;
+            Path path = chooser.getSelectedFile().toPath();
+            importBtn.setEnabled(false);
+            displayArea.setText("Importing " + path.getFileName() + "...");
+            Thread importer = new Thread(() -> {
+                String result;
+                try {
+                    result = productImporter.importFile(seller, path).appendTo(new StringBuilder(), 50).toString();
+                } catch (IOException | RuntimeException ex) {
+                    result = "Error importing products: " + ex.getMessage();
+                }
+                String text = result;
+                SwingUtilities.invokeLater(() -> {
+                    importBtn.setEnabled(true);
+                    displayArea.setText(text);
+                    displayArea.setCaretPosition(0);
+                });
+            }, "product-import");
+            importer.setDaemon(true);
+            importer.start();
+        });
 
         return panel;
     }
@@ -314,27 +428,25 @@ public class MarketplaceApplication extends JFrame {
         JPanel panel = new JPanel(new BorderLayout(10, 10));
         panel.setBorder(BorderFactory.createTitledBorder("Buyer Actions"));
 
-        productListModel = new DefaultListModel<>();
-        buyerProductList = new JList<>(productListModel);
-        buyerProductList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        buyerProductList.setCellRenderer(new DefaultListCellRenderer() {
-            @Override
-            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
-                    boolean isSelected, boolean cellHasFocus) {
-                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof Product) {
-                    Product product = (Product) value;
-                    String text = String.format("%-30s ₱%10.2f  Qty: %-5d  by %s",
-                            product.getName(), product.getPrice(),
-                            product.getQuantity(), product.getSeller().getUsername());
-                    setText(text);
-                    setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-                }
-                return this;
-            }
-        });
-
-        JScrollPane listScrollPane = new JScrollPane(buyerProductList);
+        productListModel = new ProductListModel(catalog);
+        productTableModel = new ProductTableModel(productListModel);
+        buyerProductTable = new JTable(productTableModel);
+        buyerProductTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        buyerProductTable.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        buyerProductTable.setRowHeight(20);
+        buyerProductTable.setDefaultRenderer(Object.class, new ProductCellRenderer());
+        buyerProductTable.setDefaultRenderer(Long.class, buyerProductTable.getDefaultRenderer(Object.class));
+        buyerProductTable.setDefaultRenderer(Integer.class, buyerProductTable.getDefaultRenderer(Object.class));
+        TableRowSorter<ProductTableModel> sorter = new TableRowSorter<>(productTableModel);
+        sorter.setSortsOnUpdates(true);
+        buyerProductTable.setRowSorter(sorter);
+
+        TypeaheadField searchField = new TypeaheadField(catalog, 10, this::selectProduct);
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        searchPanel.add(new JLabel("Search:"));
+        searchPanel.add(searchField);
+
+        JScrollPane listScrollPane = new JScrollPane(buyerProductTable);
         listScrollPane.setPreferredSize(new Dimension(600, 150));
         listScrollPane.setBorder(BorderFactory.createTitledBorder("Available Products"));
 
@@ -353,7 +465,9 @@ public class MarketplaceApplication extends JFrame {
                     return;
                 }
 
-                Product product = buyerProductList.getSelectedValue();
+                int selectedRow = buyerProductTable.getSelectedRow();
+                Product product = selectedRow < 0 ? null
+                        : productTableModel.getProductAt(buyerProductTable.convertRowIndexToModel(selectedRow));
                 if (product == null) {
                     showError("Please select a product from the list");
                     return;
@@ -363,7 +477,6 @@ public class MarketplaceApplication extends JFrame {
                 currentBuyer.addToCart(product, quantity);
                 showMessage("Added to cart: " + product.getName() + " x" + quantity);
                 qtyField.setText("1");
-                refreshProductList();
                 updateDisplay();
             } catch (NumberFormatException ex) {
                 showError("Invalid quantity format");
@@ -379,15 +492,14 @@ public class MarketplaceApplication extends JFrame {
                     return;
                 }
 
-                if (currentBuyer.getCart().isEmpty()) {
+                if (currentBuyer.getCartSize() == 0) {
                     showError("Cart is empty");
                     return;
                 }
 
-                double total = currentBuyer.getCartTotal();
+                long total = currentBuyer.getCartTotalCentavos();
                 currentBuyer.checkout();
-                showMessage("Checkout successful! Total: ₱" + String.format("%.2f", total));
-                refreshProductList();
+                showMessage("Checkout successful! Total: ₱" + Money.format(total));
                 updateDisplay();
             } catch (Exception ex) {
                 showError("Checkout failed: " + ex.getMessage());
@@ -408,11 +520,10 @@ public class MarketplaceApplication extends JFrame {
         controlPanel.add(checkoutBtn);
         controlPanel.add(clearCartBtn);
 
+        panel.add(searchPanel, BorderLayout.NORTH);
         panel.add(listScrollPane, BorderLayout.CENTER);
         panel.add(controlPanel, BorderLayout.SOUTH);
 
-        refreshProductList();
-
         return panel;
     }
 
@@ -425,63 +536,99 @@ public class MarketplaceApplication extends JFrame {
         displayArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
         JScrollPane scrollPane = new JScrollPane(displayArea);
 
+        JPanel pagePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
+        previousPageBtn = new JButton("Previous");
+        nextPageBtn = new JButton("Next");
+        pageLabel = new JLabel();
+        previousPageBtn.setEnabled(false);
+        nextPageBtn.setEnabled(false);
+        previousPageBtn.addActionListener(e -> {
+            dashboardPage--;
+            updateDisplay();
+        });
+        nextPageBtn.addActionListener(e -> {
+            dashboardPage++;
+            updateDisplay();
+        });
+        previousCatalogPageBtn = new JButton("Previous");
+        nextCatalogPageBtn = new JButton("Next");
+        catalogPageLabel = new JLabel();
+        previousCatalogPageBtn.addActionListener(e -> {
+            catalogPage--;
+            updateDisplay();
+        });
+        nextCatalogPageBtn.addActionListener(e -> {
+            catalogPage++;
+            updateDisplay();
+        });
+        setCatalogPagerVisible(false);
+        JButton metricsBtn = new JButton("Metrics");
+        metricsBtn.addActionListener(e -> showMetrics());
+        pagePanel.add(metricsBtn);
+        pagePanel.add(pageLabel);
+        pagePanel.add(previousPageBtn);
+        pagePanel.add(nextPageBtn);
+        pagePanel.add(catalogPageLabel);
+        pagePanel.add(previousCatalogPageBtn);
+        pagePanel.add(nextCatalogPageBtn);
+
         panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(pagePanel, BorderLayout.SOUTH);
 
         return panel;
     }
 
-    private void refreshUserCombo(JComboBox<User> combo) {
-        if (combo == null)
-            return;
-        combo.removeAllItems();
-        List<User> allUsers = new ArrayList<>();
-        allUsers.addAll(sellers);
-        allUsers.addAll(buyers);
-        allUsers.forEach(combo::addItem);
+    private void setCatalogPagerVisible(boolean visible) {
+        catalogPageLabel.setVisible(visible);
+        previousCatalogPageBtn.setVisible(visible);
+        nextCatalogPageBtn.setVisible(visible);
+    }
+
+    private void showMetrics() {
+        Metrics metrics = marketplace.getMetrics();
+        if (metrics == null) {
+            displayArea.setText("Metrics are disabled");
+        } else {
+            displayArea.setText(metrics.getReport());
+        }
+        displayArea.setCaretPosition(0);
     }
 
-    private void refreshProductList() {
-        if (productListModel == null)
+    private void selectProduct(Product product) {
+        int modelRow = productListModel.indexOf(product);
+        if (modelRow < 0) {
             return;
-        productListModel.clear();
-        List<Product> allProducts = new ArrayList<>();
-        sellers.forEach(seller -> allProducts.addAll(seller.getProducts()));
-        allProducts.stream()
-                .filter(p -> p.getQuantity() > 0)
-                .forEach(productListModel::addElement);
+        }
+        int viewRow = buyerProductTable.convertRowIndexToView(modelRow);
+        if (viewRow >= 0) {
+            buyerProductTable.setRowSelectionInterval(viewRow, viewRow);
+            buyerProductTable.scrollRectToVisible(buyerProductTable.getCellRect(viewRow, 0, true));
+        }
     }
 
     private void updateDisplay() {
         if (displayArea == null)
             return;
 
-        StringBuilder display = new StringBuilder();
-
-        if (currentUser != null) {
-            display.append(currentUser.getDashboard()).append("\n");
-
-            if (currentBuyer != null) {
-                display.append("\nAVAILABLE PRODUCTS\n");
-                List<Product> products = currentBuyer.browseProducts(sellers);
-                if (products.isEmpty()) {
-                    display.append("No products available.\n");
-                } else {
-                    products.forEach(p -> {
-                        display.append(String.format("- %s by %s: ₱%.2f (Qty: %d)\n",
-                                p.getName(), p.getSeller().getUsername(), p.getPrice(), p.getQuantity()));
-                    });
-                }
-            }
-        }
-
-        displayArea.setText(display.toString());
+        dashboardRenderer.render(currentUser, dashboardPage, catalogPage, page -> {
+            dashboardPage = page.getPage();
+            catalogPage = page.getCatalogPage();
+            displayArea.setText(page.getText());
+            displayArea.setCaretPosition(0);
+            pageLabel.setText("Page " + (page.getPage() + 1) + " of " + page.getPageCount());
+            previousPageBtn.setEnabled(page.getPage() > 0);
+            nextPageBtn.setEnabled(page.getPage() + 1 < page.getPageCount());
+            catalogPageLabel.setText("Products " + (page.getCatalogPage() + 1) + " of " + page.getCatalogPageCount());
+            previousCatalogPageBtn.setEnabled(page.getCatalogPage() > 0);
+            nextCatalogPageBtn.setEnabled(page.getCatalogPage() + 1 < page.getCatalogPageCount());
+            setCatalogPagerVisible(currentUser instanceof Buyer);
+        });
 
         if (actionCardLayout != null && actionCardContainer != null) {
             if (currentUser instanceof Seller) {
                 actionCardLayout.show(actionCardContainer, "SELLER");
             } else if (currentUser instanceof Buyer) {
                 actionCardLayout.show(actionCardContainer, "BUYER");
-                refreshProductList();
             } else {
                 actionCardLayout.show(actionCardContainer, "EMPTY");
             }
@@ -496,7 +643,11 @@ public class MarketplaceApplication extends JFrame {
         JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && "--headless".equals(args[0])) {
+            MarketplaceServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -504,7 +655,17 @@ public class MarketplaceApplication extends JFrame {
                 e.printStackTrace();
             }
 
-            MarketplaceApplication app = new MarketplaceApplication();
+            Marketplace marketplace;
+            try {
+                marketplace = Marketplace.fromSystemProperties();
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(null, "Could not open marketplace: " + e.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(marketplace::close));
+
+            MarketplaceApplication app = new MarketplaceApplication(marketplace);
             app.setVisible(true);
         });
     }
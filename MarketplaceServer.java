@@ -0,0 +1,517 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MarketplaceServer implements AutoCloseable {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_TOP_PRODUCTS = 10;
+    private static final int DEFAULT_SALES_HOURS = 24;
+
+    private final Marketplace marketplace;
+    private final Path exportDirectory;
+    private final Exporter exporter;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public MarketplaceServer(Marketplace marketplace, int port) throws IOException {
+        this(marketplace, port, null);
+    }
+
+    public MarketplaceServer(Marketplace marketplace, int port, Path exportDirectory) throws IOException {
+        this.marketplace = marketplace;
+        this.exportDirectory = exportDirectory;
+        this.exporter = new Exporter();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/sellers", exchange -> handle(exchange, this::sellers));
+        server.createContext("/buyers", exchange -> handle(exchange, this::buyers));
+        server.createContext("/products", exchange -> handle(exchange, this::products));
+        server.createContext("/cart", exchange -> handle(exchange, this::cart));
+        server.createContext("/checkout", exchange -> handle(exchange, this::checkout));
+        server.createContext("/orders", exchange -> handle(exchange, this::orders));
+        server.createContext("/sales", exchange -> handle(exchange, this::sales));
+        server.createContext("/admin/export", exchange -> handle(exchange, this::export));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            exporter.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close exporter", e);
+        }
+    }
+
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private interface Handler {
+        String handle(String method, Map<String, String> params);
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = handler.handle(exchange.getRequestMethod(), readParams(exchange));
+        } catch (NotFoundException e) {
+            status = 404;
+            body = error(e.getMessage());
+        } catch (UnsupportedOperationException e) {
+            status = 405;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException | IllegalStateException | ArithmeticException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(e.toString());
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String sellers(String method, Map<String, String> params) {
+        requireMethod(method, "POST");
+        Seller seller = marketplace.createSeller(param(params, "username"), param(params, "email"));
+        return user(new StringBuilder(), seller).toString();
+    }
+
+    private String buyers(String method, Map<String, String> params) {
+        requireMethod(method, "POST");
+        Buyer buyer = marketplace.createBuyer(param(params, "username"), param(params, "email"));
+        return user(new StringBuilder(), buyer).toString();
+    }
+
+    private String products(String method, Map<String, String> params) {
+        if ("POST".equals(method)) {
+            Seller seller = seller(param(params, "seller"));
+            String name = param(params, "name");
+            Product product = seller.uploadProductCentavos(name, Money.parse(param(params, "price")),
+                    intParam(params, "quantity"));
+            return product(new StringBuilder(), product).toString();
+        }
+        requireMethod(method, "GET");
+        int limit = params.containsKey("limit") ? intParam(params, "limit") : DEFAULT_PAGE_SIZE;
+        if ("price".equals(params.get("sort"))) {
+            return productsByPrice(params, limit);
+        }
+        StringBuilder json = new StringBuilder("{\"products\":[");
+        int count = 0;
+        for (Product product : marketplace.getCatalog().getAvailableProducts()) {
+            if (count == limit) {
+                break;
+            }
+            if (count++ > 0) {
+                json.append(',');
+            }
+            product(json, product);
+        }
+        return json.append("]}").toString();
+    }
+
+    private String productsByPrice(Map<String, String> params, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        long min = params.containsKey("minPrice") ? Money.parse(params.get("minPrice")) : 0;
+        long max = params.containsKey("maxPrice") ? Money.parse(params.get("maxPrice")) : Long.MAX_VALUE;
+        PriceIndex.Cursor cursor = marketplace.getCatalog().getPriceIndex().browse(min, max);
+        String after = params.get("after");
+        if (after != null) {
+            int separator = after.indexOf(':');
+            try {
+                cursor.seek(Long.parseLong(after.substring(0, separator)),
+                        Long.parseLong(after.substring(separator + 1)));
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        List<Product> page = cursor.next(limit);
+        StringBuilder json = new StringBuilder("{\"products\":[");
+        for (int i = 0; i < page.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            product(json, page.get(i));
+        }
+        json.append("],\"next\":");
+        if (page.size() < limit) {
+            json.append("null");
+        } else {
+            json.append('"').append(cursor.getLastPriceCentavos()).append(':')
+                    .append(cursor.getLastProductId()).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private String cart(String method, Map<String, String> params) {
+        Buyer buyer = buyer(param(params, "buyer"));
+        if ("POST".equals(method)) {
+            buyer.addToCart(product(params), intParam(params, "quantity"));
+        } else if ("DELETE".equals(method)) {
+            if (params.containsKey("productId")) {
+                buyer.removeFromCart(product(params));
+            } else {
+                buyer.clearCart();
+            }
+        } else {
+            requireMethod(method, "GET");
+        }
+        return cart(new StringBuilder(), buyer).toString();
+    }
+
+    private String checkout(String method, Map<String, String> params) {
+        requireMethod(method, "POST");
+        Buyer buyer = buyer(param(params, "buyer"));
+        OrderResult result = buyer.placeOrder();
+        if (!result.isSuccessful()) {
+            throw new IllegalStateException("Cart is empty");
+        }
+        StringBuilder json = new StringBuilder("{\"status\":\"ok\",\"total\":");
+        return Money.appendTo(json, result.getTotalCentavos()).append('}').toString();
+    }
+
+    private String orders(String method, Map<String, String> params) {
+        requireMethod(method, "GET");
+        OrderLedger ledger = marketplace.getOrderLedger();
+        if (ledger == null) {
+            throw new NotFoundException("Order history is disabled");
+        }
+        if (params.containsKey("id")) {
+            Order order;
+            try {
+                order = ledger.getOrder(Long.parseLong(params.get("id").trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid id");
+            }
+            if (order == null) {
+                throw new NotFoundException("Order not found: " + params.get("id"));
+            }
+            return order(new StringBuilder(), order).toString();
+        }
+        int offset = params.containsKey("offset") ? intParam(params, "offset") : 0;
+        int limit = params.containsKey("limit") ? intParam(params, "limit") : DEFAULT_PAGE_SIZE;
+        List<Order> orders;
+        if (params.containsKey("seller")) {
+            orders = ledger.getOrders(seller(params.get("seller")), offset, limit);
+        } else {
+            orders = ledger.getOrders(buyer(param(params, "buyer")), offset, limit);
+        }
+        StringBuilder json = new StringBuilder("{\"orders\":[");
+        for (int i = 0; i < orders.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            order(json, orders.get(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    private String sales(String method, Map<String, String> params) {
+        requireMethod(method, "GET");
+        SalesAnalytics analytics = marketplace.getSalesAnalytics();
+        if (analytics == null) {
+            throw new NotFoundException("Order history is disabled");
+        }
+        int top = params.containsKey("top") ? intParam(params, "top") : DEFAULT_TOP_PRODUCTS;
+        int hours = params.containsKey("hours") ? intParam(params, "hours") : DEFAULT_SALES_HOURS;
+        SalesAnalytics.Report report = params.containsKey("seller")
+                ? analytics.summarize(seller(params.get("seller")), top, hours)
+                : analytics.summarize(top, hours);
+        StringBuilder json = new StringBuilder("{\"revenue\":");
+        Money.appendTo(json, report.getRevenueCentavos()).append(",\"units\":").append(report.getUnits())
+                .append(",\"orders\":").append(report.getOrderCount()).append(",\"topProducts\":[");
+        List<SalesAnalytics.ProductSales> products = report.getTopProducts();
+        for (int i = 0; i < products.size(); i++) {
+            SalesAnalytics.ProductSales sales = products.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"productId\":").append(sales.getProductId()).append(",\"name\":");
+            string(json, sales.getProduct() == null ? null : sales.getProduct().getName()).append(",\"revenue\":");
+            Money.appendTo(json, sales.getRevenueCentavos()).append(",\"units\":").append(sales.getUnits())
+                    .append('}');
+        }
+        json.append("],\"sellers\":[");
+        List<SalesAnalytics.SellerSales> sellers = report.getSellers();
+        for (int i = 0; i < Math.min(top, sellers.size()); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"seller\":");
+            string(json, sellers.get(i).getSeller()).append(",\"revenue\":");
+            Money.appendTo(json, sellers.get(i).getRevenueCentavos()).append(",\"units\":")
+                    .append(sellers.get(i).getUnits()).append('}');
+        }
+        json.append("],\"hourlyStart\":").append(report.getHistogramStartMillis()).append(",\"hourly\":[");
+        for (int i = 0; i < report.getHours(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"revenue\":");
+            Money.appendTo(json, report.getHourlyRevenueCentavos(i)).append(",\"units\":")
+                    .append(report.getHourlyUnits(i)).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String export(String method, Map<String, String> params) {
+        requireMethod(method, "POST");
+        if (exportDirectory == null) {
+            throw new NotFoundException("Export is disabled");
+        }
+        Exporter.Format format;
+        try {
+            format = Exporter.Format.valueOf(params.getOrDefault("format", "csv").trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid format");
+        }
+        Path directory = exportDirectory;
+        String name = params.get("name");
+        if (name != null) {
+            if (!name.matches("[A-Za-z0-9._-]+") || name.startsWith(".")) {
+                throw new IllegalArgumentException("Invalid name");
+            }
+            directory = exportDirectory.resolve(name);
+        }
+        long started = System.nanoTime();
+        long rows;
+        try {
+            Files.createDirectories(directory);
+            rows = exporter.exportAll(marketplace, directory, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StringBuilder json = new StringBuilder("{\"rows\":").append(rows).append(",\"directory\":");
+        string(json, directory.toString()).append(",\"millis\":")
+                .append((System.nanoTime() - started) / 1_000_000);
+        return json.append('}').toString();
+    }
+
+    private Seller seller(String username) {
+        Seller seller = marketplace.findSeller(username);
+        if (seller == null) {
+            throw new NotFoundException("Seller not found: " + username);
+        }
+        return seller;
+    }
+
+    private Buyer buyer(String username) {
+        Buyer buyer = marketplace.findBuyer(username);
+        if (buyer == null) {
+            throw new NotFoundException("Buyer not found: " + username);
+        }
+        return buyer;
+    }
+
+    private Product product(Map<String, String> params) {
+        long id;
+        try {
+            id = Long.parseLong(param(params, "productId"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid productId");
+        }
+        Product product = marketplace.getCatalog().getProduct(id);
+        if (product == null) {
+            throw new NotFoundException("Product not found: " + id);
+        }
+        return product;
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!expected.equals(method)) {
+            throw new UnsupportedOperationException("Method not allowed: " + method);
+        }
+    }
+
+    private static String param(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> params, String name) {
+        try {
+            return Integer.parseInt(param(params, name).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
+    }
+
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseQuery(exchange.getRequestURI().getRawQuery(), params);
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if (body.length > 0) {
+            parseQuery(new String(body, StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseQuery(String query, Map<String, String> params) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static StringBuilder user(StringBuilder json, User user) {
+        json.append("{\"username\":");
+        string(json, user.getUsername()).append(",\"email\":");
+        return string(json, user.getEmail()).append(",\"role\":\"")
+                .append(user instanceof Seller ? "seller" : "buyer").append("\"}");
+    }
+
+    private static StringBuilder product(StringBuilder json, Product product) {
+        json.append("{\"id\":").append(product.getId()).append(",\"name\":");
+        string(json, product.getName()).append(",\"price\":");
+        Money.appendTo(json, product.getPriceCentavos()).append(",\"quantity\":").append(product.getQuantity())
+                .append(",\"seller\":");
+        return string(json, product.getSeller().getUsername()).append('}');
+    }
+
+    private static StringBuilder order(StringBuilder json, Order order) {
+        json.append("{\"id\":").append(order.getId()).append(",\"buyer\":");
+        string(json, order.getBuyer()).append(",\"timestamp\":").append(order.getTimestampMillis())
+                .append(",\"lines\":[");
+        List<Order.Line> lines = order.getLines();
+        for (int i = 0; i < lines.size(); i++) {
+            Order.Line line = lines.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"productId\":").append(line.getProductId()).append(",\"name\":");
+            string(json, line.getProduct() == null ? null : line.getProduct().getName()).append(",\"seller\":");
+            string(json, line.getSeller()).append(",\"quantity\":").append(line.getQuantity())
+                    .append(",\"unitPrice\":");
+            Money.appendTo(json, line.getUnitPriceCentavos()).append('}');
+        }
+        json.append("],\"total\":");
+        return Money.appendTo(json, order.getTotalCentavos()).append('}');
+    }
+
+    private static StringBuilder cart(StringBuilder json, Buyer buyer) {
+        List<CartItem> items = buyer.getCart();
+        json.append("{\"buyer\":");
+        string(json, buyer.getUsername()).append(",\"items\":[");
+        long total = 0;
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"productId\":").append(item.getProduct().getId()).append(",\"name\":");
+            string(json, item.getProduct().getName()).append(",\"quantity\":").append(item.getQuantity())
+                    .append(",\"total\":");
+            Money.appendTo(json, item.getTotalCentavos()).append('}');
+            total = Money.add(total, item.getTotalCentavos());
+        }
+        json.append("],\"total\":");
+        return Money.appendTo(json, total).append('}');
+    }
+
+    private static String error(String message) {
+        return string(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    private static StringBuilder string(StringBuilder json, String value) {
+        if (value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+
+    private static final class NotFoundException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private NotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("marketplace.port", DEFAULT_PORT);
+        Marketplace marketplace = Marketplace.fromSystemProperties();
+        String exportDir = System.getProperty("marketplace.exportDir");
+        MarketplaceServer server = new MarketplaceServer(marketplace, port,
+                exportDir == null || exportDir.trim().isEmpty() ? null : Path.of(exportDir.trim()));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            marketplace.close();
+        }));
+        server.start();
+        System.out.println("Marketplace service listening on http://127.0.0.1:" + server.getPort());
+    }
+}
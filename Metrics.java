@@ -0,0 +1,193 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Metrics implements MetricsMXBean {
+    public enum Operation {
+        ADD_TO_CART("addToCart"),
+        CHECKOUT("checkout"),
+        CLEAR_CART("clearCart"),
+        BROWSE_PRODUCTS("browseProducts"),
+        DASHBOARD("dashboard"),
+        UPLOAD_PRODUCT("uploadProduct"),
+        UPDATE_QUANTITY("updateProductQuantity");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final OperationStats[] operations;
+    private final Map<String, LongAdder> checkoutFailures = new ConcurrentHashMap<>();
+    private final LongAdder oversellAttempts = new LongAdder();
+    private final Map<String, LongAdder> storageFailures = new ConcurrentHashMap<>();
+
+    public Metrics() {
+        Operation[] values = Operation.values();
+        operations = new OperationStats[values.length];
+        for (Operation operation : values) {
+            operations[operation.ordinal()] = new OperationStats();
+        }
+    }
+
+    public void record(Operation operation, long startNanos, boolean success) {
+        OperationStats stats = operations[operation.ordinal()];
+        stats.histogram.record(System.nanoTime() - startNanos);
+        if (!success) {
+            stats.failures.increment();
+        }
+    }
+
+    public void recordCheckoutFailure(String reason) {
+        checkoutFailures.computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    public void recordStorageFailure(String reason) {
+        storageFailures.computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    public void recordOversellAttempts(int lines) {
+        oversellAttempts.add(lines);
+    }
+
+    public LatencyHistogram getHistogram(Operation operation) {
+        return operations[operation.ordinal()].histogram;
+    }
+
+    public long getFailures(Operation operation) {
+        return operations[operation.ordinal()].failures.sum();
+    }
+
+    @Override
+    public long getOversellAttempts() {
+        return oversellAttempts.sum();
+    }
+
+    @Override
+    public Map<String, Long> getCheckoutFailuresByReason() {
+        Map<String, Long> failures = new TreeMap<>();
+        checkoutFailures.forEach((reason, count) -> failures.put(reason, count.sum()));
+        return failures;
+    }
+
+    @Override
+    public Map<String, Long> getStorageFailuresByReason() {
+        Map<String, Long> failures = new TreeMap<>();
+        storageFailures.forEach((reason, count) -> failures.put(reason, count.sum()));
+        return failures;
+    }
+
+    @Override
+    public String getReport() {
+        return appendReport(new StringBuilder()).toString();
+    }
+
+    public StringBuilder appendReport(StringBuilder report) {
+        report.append("METRICS\n");
+        report.append(String.format("%-22s %9s %8s %10s %10s %10s %10s%n",
+                "operation", "count", "failed", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (Operation operation : Operation.values()) {
+            OperationStats stats = operations[operation.ordinal()];
+            report.append(String.format("%-22s %9d %8d %10.1f %10.1f %10.1f %10.1f%n", operation.getLabel(),
+                    stats.getCount(), stats.getFailures(), stats.getP50Micros(), stats.getP99Micros(),
+                    stats.getP999Micros(), stats.getMaxMicros()));
+        }
+        report.append("\nOversell attempts: ").append(getOversellAttempts()).append("\n");
+        Map<String, Long> failures = getCheckoutFailuresByReason();
+        if (failures.isEmpty()) {
+            report.append("Failed checkouts: none\n");
+        } else {
+            report.append("Failed checkouts:\n");
+            failures.forEach((reason, count) -> report.append("- ").append(reason).append(": ").append(count)
+                    .append("\n"));
+        }
+        Map<String, Long> storage = getStorageFailuresByReason();
+        if (!storage.isEmpty()) {
+            report.append("Storage failures:\n");
+            storage.forEach((reason, count) -> report.append("- ").append(reason).append(": ").append(count)
+                    .append("\n"));
+        }
+        return report;
+    }
+
+    public void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        register(server, new ObjectName("marketplace:type=Metrics"), this);
+        for (Operation operation : Operation.values()) {
+            register(server, new ObjectName("marketplace:type=Operation,name=" + operation.getLabel()),
+                    operations[operation.ordinal()]);
+        }
+    }
+
+    public void unregisterMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        unregister(server, new ObjectName("marketplace:type=Metrics"));
+        for (Operation operation : Operation.values()) {
+            unregister(server, new ObjectName("marketplace:type=Operation,name=" + operation.getLabel()));
+        }
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(bean, name);
+    }
+
+    private static void unregister(MBeanServer server, ObjectName name) throws JMException {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private static final class OperationStats implements OperationMetricsMXBean {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return histogram.getMeanNanos() / 1000.0;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return histogram.getPercentileNanos(0.50) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return histogram.getPercentileNanos(0.99) / 1000.0;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return histogram.getPercentileNanos(0.999) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return histogram.getMaxNanos() / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+import java.util.Map;
+
+public interface MetricsMXBean {
+    long getOversellAttempts();
+
+    Map<String, Long> getCheckoutFailuresByReason();
+
+    Map<String, Long> getStorageFailuresByReason();
+
+    String getReport();
+}
@@ -0,0 +1,131 @@
+public final class Money {
+    public static final long CENTAVOS_PER_PESO = 100;
+    private static final long MAX_PESOS = Long.MAX_VALUE / CENTAVOS_PER_PESO;
+
+    private Money() {
+    }
+
+    public static long fromPesos(double pesos) {
+        if (Double.isInfinite(pesos) || Double.isNaN(pesos)) {
+            throw new IllegalArgumentException("Invalid amount value");
+        }
+        if (Math.abs(pesos) >= MAX_PESOS) {
+            throw new ArithmeticException("Amount overflow");
+        }
+        return Math.round(pesos * CENTAVOS_PER_PESO);
+    }
+
+    public static double toPesos(long centavos) {
+        return centavos / (double) CENTAVOS_PER_PESO;
+    }
+
+    public static long parse(CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Amount cannot be empty");
+        }
+        return parse(text, 0, text.length());
+    }
+
+    public static long parse(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            throw new IllegalArgumentException("Amount cannot be empty");
+        }
+
+        boolean negative = text.charAt(start) == '-';
+        if (negative || text.charAt(start) == '+') {
+            start++;
+        }
+
+        long pesos = 0;
+        long centavos = 0;
+        int fractionDigits = -1;
+        boolean digits = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9') {
+                digits = true;
+                if (fractionDigits < 0) {
+                    pesos = Math.addExact(Math.multiplyExact(pesos, 10), c - '0');
+                } else if (fractionDigits < 2) {
+                    centavos = centavos * 10 + (c - '0');
+                    fractionDigits++;
+                } else if (c != '0') {
+                    throw new IllegalArgumentException("Amount has more than two decimal places");
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid amount format");
+            }
+        }
+        if (!digits) {
+            throw new IllegalArgumentException("Invalid amount format");
+        }
+        if (fractionDigits == 1) {
+            centavos *= 10;
+        }
+
+        long amount = add(multiply(pesos, (int) CENTAVOS_PER_PESO), centavos);
+        return negative ? -amount : amount;
+    }
+
+    public static long add(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Amount overflow");
+        }
+    }
+
+    public static long subtract(long a, long b) {
+        try {
+            return Math.subtractExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Amount overflow");
+        }
+    }
+
+    public static long multiply(long centavos, int quantity) {
+        try {
+            return Math.multiplyExact(centavos, (long) quantity);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Amount overflow");
+        }
+    }
+
+    public static String format(long centavos) {
+        return appendTo(new StringBuilder(24), centavos).toString();
+    }
+
+    public static StringBuilder appendTo(StringBuilder builder, long centavos) {
+        if (centavos < 0) {
+            builder.append('-');
+            if (centavos == Long.MIN_VALUE) {
+                return builder.append(-(Long.MIN_VALUE / CENTAVOS_PER_PESO)).append(".08");
+            }
+            centavos = -centavos;
+        }
+        long fraction = centavos % CENTAVOS_PER_PESO;
+        builder.append(centavos / CENTAVOS_PER_PESO).append('.');
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction);
+    }
+
+    public static StringBuilder appendTo(StringBuilder builder, long centavos, int width) {
+        int start = builder.length();
+        appendTo(builder, centavos);
+        int padding = width - (builder.length() - start);
+        for (int i = 0; i < padding; i++) {
+            builder.insert(start, ' ');
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,15 @@
+public interface OperationMetricsMXBean {
+    long getCount();
+
+    long getFailures();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,113 @@
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+
+public class Order {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final long id;
+    private final String buyer;
+    private final long timestampMillis;
+    private final long totalCentavos;
+    private final List<Line> lines;
+
+    Order(long id, String buyer, long timestampMillis, long totalCentavos, List<Line> lines) {
+        this.id = id;
+        this.buyer = buyer;
+        this.timestampMillis = timestampMillis;
+        this.totalCentavos = totalCentavos;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getBuyer() {
+        return buyer;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long getTotalCentavos() {
+        return totalCentavos;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public int getUnits() {
+        int units = 0;
+        for (Line line : lines) {
+            units += line.getQuantity();
+        }
+        return units;
+    }
+
+    StringBuilder appendTo(StringBuilder builder) {
+        builder.append('#').append(id).append(' ');
+        TIMESTAMP_FORMAT.formatTo(Instant.ofEpochMilli(timestampMillis), builder);
+        builder.append(" - ").append(lines.size()).append(lines.size() == 1 ? " line, " : " lines, ")
+                .append(getUnits()).append(" units = ₱");
+        return Money.appendTo(builder, totalCentavos);
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    public static final class Line {
+        private final long productId;
+        private final Product product;
+        private final String seller;
+        private final int quantity;
+        private final long unitPriceCentavos;
+
+        Line(long productId, Product product, String seller, int quantity, long unitPriceCentavos) {
+            this.productId = productId;
+            this.product = product;
+            this.seller = seller;
+            this.quantity = quantity;
+            this.unitPriceCentavos = unitPriceCentavos;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public String getSeller() {
+            return seller;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public long getUnitPriceCentavos() {
+            return unitPriceCentavos;
+        }
+
+        public long getTotalCentavos() {
+            return Money.multiply(unitPriceCentavos, quantity);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(product == null ? "#" + productId : product.getName()).append(" x").append(quantity)
+                    .append(" @ ₱");
+            return Money.appendTo(builder, unitPriceCentavos).toString();
+        }
+    }
+}
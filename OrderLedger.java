@@ -0,0 +1,575 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class OrderLedger implements AutoCloseable {
+    static final int ORDER_BYTES = 28;
+    static final int ORDER_TIMESTAMP = 0;
+    static final int ORDER_TOTAL = 8;
+    static final int ORDER_BUYER = 16;
+    static final int ORDER_FIRST_LINE = 20;
+    static final int ORDER_LINE_COUNT = 24;
+    static final int LINE_BYTES = 24;
+    static final int LINE_PRODUCT = 0;
+    static final int LINE_UNIT_PRICE = 8;
+    static final int LINE_SELLER = 16;
+    static final int LINE_QUANTITY = 20;
+
+    private static final int ORDERS_PER_SEGMENT = 1 << 14;
+    private static final int LINES_PER_SEGMENT = 1 << 16;
+    private static final String SPILL_PREFIX = "orders-";
+    private static final String SPILL_SUFFIX = ".seg";
+    private static final long SPILL_WAIT_NANOS = 100_000;
+
+    private final Catalog catalog;
+    private final Path spillDirectory;
+    private final int maxResidentSegments;
+    private final ExecutorService spiller;
+    private final Map<Long, Integer> userIndexes;
+    private volatile User[] users;
+    private volatile IdList[] ordersByUser;
+    private int userCount;
+    private volatile Segment[] segments;
+    private volatile int segmentCount;
+    private volatile Segment active;
+    private final LongAdder orderCount = new LongAdder();
+    private final LongAdder lineCount = new LongAdder();
+    private final AtomicLong minProductId = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxProductId = new AtomicLong(Long.MIN_VALUE);
+    private volatile Metrics metrics;
+    private volatile IOException spillFailure;
+    private int spilledSegments;
+    private boolean spillScheduled;
+    private boolean closed;
+
+    public OrderLedger(Catalog catalog) {
+        this(catalog, null, 0, null);
+    }
+
+    public OrderLedger(Catalog catalog, Path spillDirectory, int maxResidentSegments) throws IOException {
+        this(catalog, requireDirectory(spillDirectory), maxResidentSegments, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-ledger-spill");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    private OrderLedger(Catalog catalog, Path spillDirectory, int maxResidentSegments, ExecutorService spiller) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (spillDirectory != null && maxResidentSegments < 1) {
+            throw new IllegalArgumentException("Resident segment count must be greater than 0");
+        }
+        this.catalog = catalog;
+        this.spillDirectory = spillDirectory;
+        this.maxResidentSegments = maxResidentSegments;
+        this.spiller = spiller;
+        this.userIndexes = new ConcurrentHashMap<>();
+        this.users = new User[64];
+        this.ordersByUser = new IdList[64];
+        this.segments = new Segment[16];
+    }
+
+    private static Path requireDirectory(Path spillDirectory) throws IOException {
+        if (spillDirectory == null) {
+            throw new IllegalArgumentException("Spill directory cannot be null");
+        }
+        Files.createDirectories(spillDirectory);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(spillDirectory, SPILL_PREFIX + "*" + SPILL_SUFFIX)) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        }
+        return spillDirectory;
+    }
+
+    public long record(Buyer buyer, Collection<CartItem> items) {
+        return record(buyer, items, System.currentTimeMillis());
+    }
+
+    long record(Buyer buyer, Collection<CartItem> items, long timestamp) {
+        if (buyer == null) {
+            throw new IllegalArgumentException("Buyer cannot be null");
+        }
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Order must have at least one line");
+        }
+        long total = 0;
+        for (CartItem item : items) {
+            total = Money.add(total, Money.multiply(item.getUnitPriceCentavos(), item.getQuantity()));
+        }
+        int count = items.size();
+        int buyerIndex = indexOf(buyer);
+        int[] sellerIndexes = new int[count];
+        int line = 0;
+        for (CartItem item : items) {
+            sellerIndexes[line++] = indexOf(item.getProduct().getSeller());
+        }
+
+        Segment segment = active;
+        long position;
+        while (segment == null || (position = segment.reserve(count)) < 0) {
+            segment = rollOver(segment, count);
+        }
+        int slot = (int) (position >>> 32);
+        int firstLine = (int) position;
+        long id = segment.firstOrderId + slot;
+        ByteBuffer lines = segment.lines;
+        int offset = firstLine * LINE_BYTES;
+        line = 0;
+        for (CartItem item : items) {
+            long productId = item.getProduct().getId();
+            updateProductRange(productId);
+            lines.putLong(offset + LINE_PRODUCT, productId)
+                    .putLong(offset + LINE_UNIT_PRICE, item.getUnitPriceCentavos())
+                    .putInt(offset + LINE_SELLER, sellerIndexes[line++])
+                    .putInt(offset + LINE_QUANTITY, item.getQuantity());
+            offset += LINE_BYTES;
+        }
+        int base = slot * ORDER_BYTES;
+        segment.orders.putLong(base + ORDER_TIMESTAMP, timestamp)
+                .putLong(base + ORDER_TOTAL, total)
+                .putInt(base + ORDER_BUYER, buyerIndex)
+                .putInt(base + ORDER_FIRST_LINE, firstLine);
+        segment.publish(slot, count);
+        orderCount.increment();
+        lineCount.add(count);
+
+        IdList[] lists = ordersByUser;
+        lists[buyerIndex].add(id);
+        Arrays.sort(sellerIndexes);
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || sellerIndexes[i] != sellerIndexes[i - 1]) {
+                lists[sellerIndexes[i]].add(id);
+            }
+        }
+        return id;
+    }
+
+    private void updateProductRange(long productId) {
+        long current;
+        while (productId < (current = minProductId.get()) && !minProductId.compareAndSet(current, productId)) {
+            Thread.onSpinWait();
+        }
+        while (productId > (current = maxProductId.get()) && !maxProductId.compareAndSet(current, productId)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private synchronized Segment rollOver(Segment full, int lineCapacity) {
+        if (active != full) {
+            return active;
+        }
+        long nextId = 1;
+        if (full != null) {
+            nextId = full.firstOrderId + full.seal();
+        }
+        return startSegment(nextId, lineCapacity);
+    }
+
+    public Order getOrder(long id) {
+        return getOrder(id, -1);
+    }
+
+    public List<Order> getOrders(Buyer buyer, int offset, int limit) {
+        return getOrders((User) buyer, offset, limit);
+    }
+
+    public List<Order> getOrders(Seller seller, int offset, int limit) {
+        return getOrders((User) seller, offset, limit);
+    }
+
+    public int getOrderCount(User user) {
+        IdList ids = ordersOf(user);
+        return ids == null ? 0 : ids.size();
+    }
+
+    public long size() {
+        return orderCount.sum();
+    }
+
+    public long getLineCount() {
+        return lineCount.sum();
+    }
+
+    public synchronized int getSpilledSegmentCount() {
+        return spilledSegments;
+    }
+
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public IOException getSpillFailure() {
+        return spillFailure;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    int getSegmentCount() {
+        return segmentCount;
+    }
+
+    Segment getSegment(int index) {
+        if (index < 0 || index >= segmentCount) {
+            throw new IndexOutOfBoundsException("Segment " + index);
+        }
+        return segments[index];
+    }
+
+    User getUser(int index) {
+        return users[index];
+    }
+
+    long getMinProductId() {
+        return minProductId.get();
+    }
+
+    long getMaxProductId() {
+        return maxProductId.get();
+    }
+
+    Catalog getCatalog() {
+        return catalog;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (spiller == null) {
+            return;
+        }
+        spiller.shutdownNow();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDirectory, SPILL_PREFIX + "*" + SPILL_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete spilled order segments", e);
+        }
+    }
+
+    private List<Order> getOrders(User user, int offset, int limit) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        User.validatePage(offset, limit);
+        IdList ids = ordersOf(user);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        int size = ids.size();
+        long[] snapshot = ids.array();
+        int filter = user instanceof Seller ? findUser(user) : -1;
+        List<Order> orders = new ArrayList<>(Math.max(0, Math.min(limit, size - offset)));
+        for (int i = size - 1 - offset; i >= 0 && orders.size() < limit; i--) {
+            Order order = getOrder(snapshot[i], filter);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    Segment findSegment(long id) {
+        int count = segmentCount;
+        Segment[] current = segments;
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (current[middle].firstOrderId <= id) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high < 0 ? null : current[high];
+    }
+
+    private Order getOrder(long id, int sellerFilter) {
+        Segment segment = findSegment(id);
+        if (segment == null) {
+            return null;
+        }
+        long index = id - segment.firstOrderId;
+        return index < segment.getOrderCount() ? toOrder(segment, (int) index, sellerFilter) : null;
+    }
+
+    private Order toOrder(Segment segment, int index, int sellerFilter) {
+        ByteBuffer orders = segment.orders;
+        ByteBuffer lines = segment.lines;
+        int base = index * ORDER_BYTES;
+        int firstLine = orders.getInt(base + ORDER_FIRST_LINE);
+        int count = orders.getInt(base + ORDER_LINE_COUNT);
+        long total = sellerFilter < 0 ? orders.getLong(base + ORDER_TOTAL) : 0;
+        List<Order.Line> orderLines = new ArrayList<>(count);
+        User[] names = users;
+        for (int line = firstLine; line < firstLine + count; line++) {
+            int offset = line * LINE_BYTES;
+            int seller = lines.getInt(offset + LINE_SELLER);
+            if (sellerFilter >= 0 && seller != sellerFilter) {
+                continue;
+            }
+            long productId = lines.getLong(offset + LINE_PRODUCT);
+            long unitPrice = lines.getLong(offset + LINE_UNIT_PRICE);
+            int quantity = lines.getInt(offset + LINE_QUANTITY);
+            orderLines.add(new Order.Line(productId, catalog.getProduct(productId), names[seller].getUsername(),
+                    quantity, unitPrice));
+            if (sellerFilter >= 0) {
+                total = Money.add(total, Money.multiply(unitPrice, quantity));
+            }
+        }
+        return new Order(segment.firstOrderId + index, names[orders.getInt(base + ORDER_BUYER)].getUsername(),
+                orders.getLong(base + ORDER_TIMESTAMP), total, orderLines);
+    }
+
+    IdList ordersOf(User user) {
+        Integer index = userIndexes.get(user.getId());
+        return index == null ? null : ordersByUser[index];
+    }
+
+    int findUser(User user) {
+        Integer index = userIndexes.get(user.getId());
+        return index == null ? -1 : index;
+    }
+
+    private int indexOf(User user) {
+        Integer index = userIndexes.get(user.getId());
+        return index != null ? index : register(user);
+    }
+
+    private synchronized int register(User user) {
+        Integer index = userIndexes.get(user.getId());
+        if (index != null) {
+            return index;
+        }
+        if (userCount == users.length) {
+            ordersByUser = Arrays.copyOf(ordersByUser, userCount * 2);
+            users = Arrays.copyOf(users, userCount * 2);
+        }
+        users[userCount] = user;
+        ordersByUser[userCount] = new IdList();
+        userIndexes.put(user.getId(), userCount);
+        return userCount++;
+    }
+
+    private Segment startSegment(long firstOrderId, int lineCapacity) {
+        Segment segment = new Segment(firstOrderId, ORDERS_PER_SEGMENT, Math.max(LINES_PER_SEGMENT, lineCapacity));
+        Segment[] current = segments;
+        if (segmentCount == current.length) {
+            current = Arrays.copyOf(current, segmentCount * 2);
+        }
+        current[segmentCount] = segment;
+        segments = current;
+        segmentCount++;
+        active = segment;
+        if (spiller != null && !closed && !spillScheduled && segmentCount - 1 - spilledSegments > maxResidentSegments) {
+            spillScheduled = true;
+            spiller.execute(this::spill);
+        }
+        return segment;
+    }
+
+    private void spill() {
+        while (true) {
+            Segment segment;
+            synchronized (this) {
+                if (closed || segmentCount - 1 - spilledSegments <= maxResidentSegments) {
+                    spillScheduled = false;
+                    return;
+                }
+                segment = segments[spilledSegments];
+            }
+            while (!segment.isComplete()) {
+                LockSupport.parkNanos(SPILL_WAIT_NANOS);
+            }
+            try {
+                segment.spill(spillDirectory.resolve(String.format("%s%020d%s", SPILL_PREFIX, segment.firstOrderId,
+                        SPILL_SUFFIX)));
+            } catch (IOException e) {
+                spillFailure = e;
+                Metrics current = metrics;
+                if (current != null) {
+                    current.recordStorageFailure("order spill");
+                }
+                synchronized (this) {
+                    spillScheduled = false;
+                }
+                return;
+            }
+            synchronized (this) {
+                spilledSegments++;
+            }
+        }
+    }
+
+    static final class Segment {
+        private static final long SEALED = Long.MIN_VALUE;
+        private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class,
+                ByteOrder.BIG_ENDIAN);
+        private static final AtomicIntegerFieldUpdater<Segment> PUBLISHED =
+                AtomicIntegerFieldUpdater.newUpdater(Segment.class, "orderCount");
+
+        private final long firstOrderId;
+        private final int orderCapacity;
+        private final int lineCapacity;
+        private final AtomicLong position = new AtomicLong();
+        private volatile ByteBuffer orders;
+        private volatile ByteBuffer lines;
+        private volatile int orderCount;
+
+        private Segment(long firstOrderId, int orderCapacity, int lineCapacity) {
+            this.firstOrderId = firstOrderId;
+            this.orderCapacity = orderCapacity;
+            this.lineCapacity = lineCapacity;
+            this.orders = ByteBuffer.allocate(orderCapacity * ORDER_BYTES);
+            this.lines = ByteBuffer.allocate(lineCapacity * LINE_BYTES);
+        }
+
+        long getFirstOrderId() {
+            return firstOrderId;
+        }
+
+        int getOrderCount() {
+            return orderCount;
+        }
+
+        private int getReservedCount() {
+            return (int) (position.get() >>> 32) & Integer.MAX_VALUE;
+        }
+
+        private long reserve(int lineCount) {
+            long current = position.get();
+            while (true) {
+                if ((current & SEALED) != 0 || (int) (current >>> 32) == orderCapacity
+                        || (int) current + lineCount > lineCapacity) {
+                    return -1;
+                }
+                long witness = position.compareAndExchange(current, current + (1L << 32) + lineCount);
+                if (witness == current) {
+                    return current;
+                }
+                current = witness;
+            }
+        }
+
+        private int seal() {
+            return (int) (position.getAndUpdate(current -> current | SEALED) >>> 32) & Integer.MAX_VALUE;
+        }
+
+        private void publish(int slot, int lineCount) {
+            ByteBuffer buffer = orders;
+            INT_VIEW.setVolatile(buffer, slot * ORDER_BYTES + ORDER_LINE_COUNT, lineCount);
+            int published = orderCount;
+            while (published < getReservedCount()
+                    && (int) INT_VIEW.getVolatile(buffer, published * ORDER_BYTES + ORDER_LINE_COUNT) != 0) {
+                if (PUBLISHED.compareAndSet(this, published, published + 1)) {
+                    published++;
+                } else {
+                    published = orderCount;
+                }
+            }
+        }
+
+        private boolean isComplete() {
+            long current = position.get();
+            return (current & SEALED) != 0 && orderCount == ((int) (current >>> 32) & Integer.MAX_VALUE);
+        }
+
+        ByteBuffer getOrders() {
+            return orders;
+        }
+
+        ByteBuffer getLines() {
+            return lines;
+        }
+
+        boolean isSpilled() {
+            return orders.isDirect();
+        }
+
+        private void spill(Path file) throws IOException {
+            int orderBytes = orderCount * ORDER_BYTES;
+            int lineBytes = (int) position.get() * LINE_BYTES;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer source = orders.duplicate();
+                source.clear().limit(orderBytes);
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                source = lines.duplicate();
+                source.clear().limit(lineBytes);
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, orderBytes + lineBytes);
+                ByteBuffer spilledLines = mapped.position(orderBytes).slice();
+                ByteBuffer spilledOrders = mapped.position(0).limit(orderBytes).slice();
+                orders = spilledOrders;
+                lines = spilledLines;
+            }
+        }
+    }
+
+    static final class IdList {
+        private volatile long[] ids = new long[4];
+        private volatile int size;
+
+        int size() {
+            return size;
+        }
+
+        long[] array() {
+            return ids;
+        }
+
+        private synchronized void add(long id) {
+            long[] current = ids;
+            int count = size;
+            int insertAt = count;
+            while (insertAt > 0 && current[insertAt - 1] > id) {
+                insertAt--;
+            }
+            if (insertAt < count || count == current.length) {
+                long[] grown = new long[count == current.length ? count * 2 : current.length];
+                System.arraycopy(current, 0, grown, 0, insertAt);
+                System.arraycopy(current, insertAt, grown, insertAt + 1, count - insertAt);
+                current = grown;
+            }
+            current[insertAt] = id;
+            ids = current;
+            size = count + 1;
+        }
+    }
+}
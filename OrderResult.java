@@ -0,0 +1,32 @@
+import java.util.Collections;
+import java.util.List;
+
+public class OrderResult {
+    private final boolean successful;
+    private final long totalCentavos;
+    private final List<String> failures;
+
+    public OrderResult(boolean successful, long totalCentavos, List<String> failures) {
+        this.successful = successful;
+        this.totalCentavos = totalCentavos;
+        this.failures = failures == null ? Collections.emptyList() : Collections.unmodifiableList(failures);
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    public long getTotalCentavos() {
+        return totalCentavos;
+    }
+
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderResult{successful=" + successful + ", total=" + Money.format(totalCentavos)
+                + ", failures=" + failures + "}";
+    }
+}
@@ -0,0 +1,325 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class OrderSequencer implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = 50_000;
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final AtomicReferenceArray<Submission> ring;
+    private final OrderResult[] results;
+    private final int mask;
+    private final int batchSize;
+    private final AtomicLong claimed;
+    private final Thread writer;
+    private final Map<Product, Stock> stock = new IdentityHashMap<>();
+    private final List<Reservation> consumed = new ArrayList<>();
+    private final List<CartItem> consumedItems = new ArrayList<>();
+    private volatile Journal journal;
+    private volatile long processed;
+    private long nextSequence;
+
+    public OrderSequencer() {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public OrderSequencer(int capacity, int batchSize) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.results = new OrderResult[batchSize];
+        this.mask = capacity - 1;
+        this.batchSize = batchSize;
+        this.claimed = new AtomicLong();
+        this.writer = new Thread(this::runWriter, "order-sequencer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public CompletableFuture<OrderResult> submit(List<CartItem> items) {
+        return submit(null, items);
+    }
+
+    public CompletableFuture<OrderResult> submit(Buyer buyer, List<CartItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Order must have at least one item");
+        }
+        Submission submission = new Submission(buyer, items);
+        long sequence = claimed.get();
+        while (true) {
+            if ((sequence & CLOSED) != 0) {
+                throw new IllegalStateException("Order sequencer is closed");
+            }
+            long witness = claimed.compareAndExchange(sequence, sequence + 1);
+            if (witness == sequence) {
+                break;
+            }
+            sequence = witness;
+        }
+        int index = (int) (sequence & mask);
+        while (!ring.compareAndSet(index, null, submission)) {
+            if (!writer.isAlive()) {
+                submission.fail();
+                return submission.future;
+            }
+            Thread.onSpinWait();
+        }
+        LockSupport.unpark(writer);
+        if (!writer.isAlive() && ring.compareAndSet(index, submission, null)) {
+            submission.fail();
+        }
+        return submission.future;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public long getProcessedCount() {
+        return processed;
+    }
+
+    public boolean isClosed() {
+        return (claimed.get() & CLOSED) != 0;
+    }
+
+    @Override
+    public void close() {
+        claimed.getAndUpdate(sequence -> sequence | CLOSED);
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        Submission[] batch = new Submission[batchSize];
+        while (true) {
+            long sequence = claimed.get();
+            boolean closed = (sequence & CLOSED) != 0;
+            if (closed && (sequence & ~CLOSED) == nextSequence) {
+                return;
+            }
+            int count = 0;
+            while (count < batchSize) {
+                int index = (int) (nextSequence & mask);
+                Submission submission = ring.get(index);
+                if (submission == null) {
+                    break;
+                }
+                batch[count++] = submission;
+                ring.set(index, null);
+                nextSequence++;
+            }
+
+            if (count > 0 && closed) {
+                for (int i = 0; i < count; i++) {
+                    batch[i].fail();
+                    batch[i] = null;
+                }
+                processed = nextSequence;
+                continue;
+            }
+            if (count > 0) {
+                applyBatch(batch, count);
+                processed = nextSequence;
+            }
+            for (int i = 0; i < count; i++) {
+                batch[i].future.complete(results[i]);
+                batch[i] = null;
+                results[i] = null;
+            }
+
+            if (count == 0) {
+                LockSupport.parkNanos(this, closed ? IDLE_PARK_NANOS / 50 : IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void applyBatch(Submission[] batch, int count) {
+        Journal current = journal;
+        if (current == null) {
+            reserveBatch(batch, count);
+            return;
+        }
+        current.beginCheckout();
+        try {
+            reserveBatch(batch, count);
+            List<Buyer> buyers = new ArrayList<>(count);
+            List<List<CartItem>> orders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (results[i].isSuccessful() && batch[i].buyer != null) {
+                    buyers.add(batch[i].buyer);
+                    orders.add(batch[i].items);
+                }
+            }
+            if (!orders.isEmpty()) {
+                current.recordCheckouts(buyers, orders);
+            }
+        } finally {
+            current.endCheckout();
+        }
+    }
+
+    private void reserveBatch(Submission[] batch, int count) {
+        stock.clear();
+        for (int i = 0; i < count; i++) {
+            for (CartItem item : batch[i].items) {
+                stock.computeIfAbsent(item.getProduct(), Stock::new);
+            }
+        }
+        int[] stripes = CheckoutTransaction.lock(stock.keySet());
+        try {
+            for (Stock line : stock.values()) {
+                line.available = line.product.getQuantity();
+            }
+            for (int i = 0; i < count; i++) {
+                results[i] = allocate(batch[i].items);
+            }
+            if (!commit()) {
+                for (int i = 0; i < count; i++) {
+                    results[i] = apply(batch[i].items);
+                }
+            }
+        } catch (RuntimeException e) {
+            rehold(0);
+            for (int i = 0; i < count; i++) {
+                results[i] = new OrderResult(false, 0, List.of(String.valueOf(e.getMessage())));
+            }
+        } finally {
+            CheckoutTransaction.unlock(stripes);
+            consumed.clear();
+            consumedItems.clear();
+        }
+    }
+
+    private OrderResult allocate(List<CartItem> items) {
+        List<String> failures = null;
+        for (CartItem item : items) {
+            Stock line = stock.get(item.getProduct());
+            if (!isHeld(item) && line.available < item.getQuantity()) {
+                if (failures == null) {
+                    failures = new ArrayList<>();
+                }
+                failures.add(CheckoutTransaction.shortage(item.getProduct(), item.getQuantity(), line.available));
+            }
+        }
+        if (failures != null) {
+            return new OrderResult(false, 0, failures);
+        }
+        int mark = consumed.size();
+        long total = 0;
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            Stock line = stock.get(item.getProduct());
+            if (isHeld(item) && item.getReservation().consume()) {
+                consumed.add(item.getReservation());
+                consumedItems.add(item);
+            } else if (line.available >= item.getQuantity()) {
+                take(line, item.getQuantity());
+            } else {
+                for (int j = 0; j < i; j++) {
+                    if (!consumedItems.subList(mark, consumedItems.size()).contains(items.get(j))) {
+                        take(stock.get(items.get(j).getProduct()), -items.get(j).getQuantity());
+                    }
+                }
+                rehold(mark);
+                return new OrderResult(false, 0, List.of(
+                        CheckoutTransaction.shortage(item.getProduct(), item.getQuantity(), line.available)));
+            }
+            total = Money.add(total, item.getTotalCentavos());
+        }
+        return new OrderResult(true, total, null);
+    }
+
+    private static void take(Stock line, int quantity) {
+        line.available -= quantity;
+        line.taken += quantity;
+    }
+
+    private boolean commit() {
+        List<Stock> reduced = new ArrayList<>();
+        for (Stock line : stock.values()) {
+            if (line.taken == 0) {
+                continue;
+            }
+            if (!line.product.tryReduceQuantity(line.taken)) {
+                for (Stock done : reduced) {
+                    done.product.increaseQuantity(done.taken);
+                }
+                rehold(0);
+                return false;
+            }
+            reduced.add(line);
+        }
+        return true;
+    }
+
+    private void rehold(int from) {
+        for (int i = consumed.size() - 1; i >= from; i--) {
+            Reservation reservation = consumed.remove(i);
+            CartItem item = consumedItems.remove(i);
+            item.setReservation(reservation.getManager().hold(item.getProduct(), item.getQuantity()));
+        }
+    }
+
+    private static boolean isHeld(CartItem item) {
+        Reservation reservation = item.getReservation();
+        return reservation != null && reservation.getQuantity() == item.getQuantity() && reservation.isLive();
+    }
+
+    private static OrderResult apply(List<CartItem> items) {
+        CheckoutTransaction transaction = new CheckoutTransaction(items);
+        if (!transaction.reserveAll()) {
+            return new OrderResult(false, 0, transaction.getErrors());
+        }
+        long total = 0;
+        for (CartItem item : items) {
+            total = Money.add(total, item.getTotalCentavos());
+        }
+        return new OrderResult(true, total, null);
+    }
+
+    private static final class Stock {
+        private final Product product;
+        private int available;
+        private int taken;
+
+        private Stock(Product product) {
+            this.product = product;
+        }
+    }
+
+    private static final class Submission {
+        private final Buyer buyer;
+        private final List<CartItem> items;
+        private final CompletableFuture<OrderResult> future;
+
+        private Submission(Buyer buyer, List<CartItem> items) {
+            this.buyer = buyer;
+            this.items = items;
+            this.future = new CompletableFuture<>();
+        }
+
+        private void fail() {
+            future.completeExceptionally(new IllegalStateException("Order sequencer is closed"));
+        }
+    }
+}
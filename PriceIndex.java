@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+public class PriceIndex {
+    private final ConcurrentSkipListMap<Key, Product> byPrice = new ConcurrentSkipListMap<>();
+    private final Map<Long, ConcurrentSkipListMap<Key, Product>> bySeller = new ConcurrentHashMap<>();
+
+    void refresh(Product product) {
+        synchronized (product) {
+            Key current = product.getPriceKey();
+            boolean available = product.getQuantity() > 0;
+            long price = product.getPriceCentavos();
+            if (current == null ? !available : available && current.priceCentavos == price) {
+                return;
+            }
+            ConcurrentSkipListMap<Key, Product> sellerIndex =
+                    bySeller.computeIfAbsent(product.getSeller().getId(), seller -> new ConcurrentSkipListMap<>());
+            if (current != null) {
+                byPrice.remove(current);
+                sellerIndex.remove(current);
+            }
+            Key updated = available ? new Key(price, product.getId()) : null;
+            if (updated != null) {
+                byPrice.put(updated, product);
+                sellerIndex.put(updated, product);
+            }
+            product.setPriceKey(updated);
+        }
+    }
+
+    public int size() {
+        return byPrice.size();
+    }
+
+    public List<Product> getCheapest(int limit) {
+        return firstPage(byPrice, limit);
+    }
+
+    public List<Product> getCheapest(Seller seller, int limit) {
+        return firstPage(sellerIndex(seller), limit);
+    }
+
+    public List<Product> getMostExpensive(int limit) {
+        return firstPage(byPrice.descendingMap(), limit);
+    }
+
+    public List<Product> getInRange(long minPriceCentavos, long maxPriceCentavos, int limit) {
+        return firstPage(range(byPrice, minPriceCentavos, maxPriceCentavos), limit);
+    }
+
+    public List<Product> getInRange(Seller seller, long minPriceCentavos, long maxPriceCentavos, int limit) {
+        return firstPage(range(sellerIndex(seller), minPriceCentavos, maxPriceCentavos), limit);
+    }
+
+    public Cursor browse(long minPriceCentavos, long maxPriceCentavos) {
+        validateRange(minPriceCentavos, maxPriceCentavos);
+        return new Cursor(() -> byPrice, minPriceCentavos, maxPriceCentavos);
+    }
+
+    public Cursor browse(Seller seller, long minPriceCentavos, long maxPriceCentavos) {
+        sellerIndex(seller);
+        validateRange(minPriceCentavos, maxPriceCentavos);
+        return new Cursor(() -> sellerIndex(seller), minPriceCentavos, maxPriceCentavos);
+    }
+
+    private NavigableMap<Key, Product> sellerIndex(Seller seller) {
+        if (seller == null) {
+            throw new IllegalArgumentException("Seller cannot be null");
+        }
+        NavigableMap<Key, Product> index = bySeller.get(seller.getId());
+        return index == null ? Collections.emptyNavigableMap() : index;
+    }
+
+    private static NavigableMap<Key, Product> range(NavigableMap<Key, Product> index, long min, long max) {
+        validateRange(min, max);
+        return index.subMap(new Key(min, Long.MIN_VALUE), true, new Key(max, Long.MAX_VALUE), true);
+    }
+
+    private static void validateRange(long min, long max) {
+        if (min < 0) {
+            throw new IllegalArgumentException("Minimum price cannot be negative");
+        }
+        if (max < min) {
+            throw new IllegalArgumentException("Maximum price cannot be less than minimum price");
+        }
+    }
+
+    private static List<Product> firstPage(NavigableMap<Key, Product> index, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        List<Product> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Product product : index.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(product);
+        }
+        return page;
+    }
+
+    static final class Key implements Comparable<Key> {
+        private final long priceCentavos;
+        private final long productId;
+
+        private Key(long priceCentavos, long productId) {
+            this.priceCentavos = priceCentavos;
+            this.productId = productId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byPrice = Long.compare(priceCentavos, other.priceCentavos);
+            return byPrice != 0 ? byPrice : Long.compare(productId, other.productId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            Key key = (Key) obj;
+            return priceCentavos == key.priceCentavos && productId == key.productId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(priceCentavos) + Long.hashCode(productId);
+        }
+    }
+
+    public static final class Cursor {
+        private final Supplier<NavigableMap<Key, Product>> index;
+        private final Key end;
+        private Key last;
+
+        private Cursor(Supplier<NavigableMap<Key, Product>> index, long minPriceCentavos, long maxPriceCentavos) {
+            this.index = index;
+            this.end = new Key(maxPriceCentavos, Long.MAX_VALUE);
+            this.last = new Key(minPriceCentavos, Long.MIN_VALUE);
+        }
+
+        public synchronized List<Product> next(int limit) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Limit must be greater than 0");
+            }
+            List<Product> page = new ArrayList<>(Math.min(limit, 1024));
+            if (last.compareTo(end) >= 0) {
+                return page;
+            }
+            for (Map.Entry<Key, Product> entry : index.get().subMap(last, false, end, true).entrySet()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(entry.getValue());
+                last = entry.getKey();
+            }
+            return page;
+        }
+
+        public synchronized long getLastPriceCentavos() {
+            return last.priceCentavos;
+        }
+
+        public synchronized long getLastProductId() {
+            return last.productId;
+        }
+
+        public synchronized void seek(long priceCentavos, long productId) {
+            last = new Key(priceCentavos, productId);
+        }
+    }
+}
@@ -1,20 +1,43 @@
-import java.util.Objects;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 public class Product {
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+    private static final AtomicLongFieldUpdater<Product> VERSION =
+            AtomicLongFieldUpdater.newUpdater(Product.class, "version");
+
+    private final long id;
     private String name;
-    private double price;
-    private int quantity;
+    private volatile long priceCentavos;
+    private final AtomicInteger quantity;
     private Seller seller;
+    private final List<ProductListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile int inventorySlot = -1;
+    private volatile long version;
+    private PriceIndex.Key priceKey;
 
     public Product(String name, double price, int quantity, Seller seller) {
+        this(NEXT_ID.getAndIncrement(), name, toCentavos(price), quantity, seller);
+    }
+
+    Product(String name, long priceCentavos, int quantity, Seller seller) {
+        this(NEXT_ID.getAndIncrement(), name, priceCentavos, quantity, seller);
+    }
+
+    Product(long id, String name, long priceCentavos, int quantity, Seller seller) {
         validateName(name);
-        validatePrice(price);
+        validatePriceCentavos(priceCentavos);
         validateInitialQuantity(quantity);
         validateSeller(seller);
         this.name = name;
-        this.price = price;
-        this.quantity = quantity;
+        this.priceCentavos = priceCentavos;
+        this.quantity = new AtomicInteger(quantity);
         this.seller = seller;
+        this.id = id;
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
     }
 
     private void validateName(String name) {
@@ -23,15 +46,26 @@ public class Product {
         }
     }
 
-    private void validatePrice(double price) {
+    private static long toCentavos(double price) {
+        if (Double.isInfinite(price) || Double.isNaN(price)) {
+            throw new IllegalArgumentException("Invalid price value");
+        }
         if (price <= 0) {
             throw new IllegalArgumentException("Price must be greater than 0");
         }
-        if (Double.isInfinite(price) || Double.isNaN(price)) {
+        try {
+            return Money.fromPesos(price);
+        } catch (ArithmeticException e) {
             throw new IllegalArgumentException("Invalid price value");
         }
     }
 
+    private void validatePriceCentavos(long priceCentavos) {
+        if (priceCentavos <= 0) {
+            throw new IllegalArgumentException("Price must be greater than 0");
+        }
+    }
+
     private void validateInitialQuantity(int quantity) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than 0");
@@ -50,31 +84,61 @@ public class Product {
         }
     }
 
+    public long getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
 
     public void setName(String name) {
         validateName(name);
+        String oldName = this.name;
         this.name = name;
+        VERSION.incrementAndGet(this);
+        for (ProductListener listener : listeners) {
+            listener.nameChanged(this, oldName);
+        }
     }
 
     public double getPrice() {
-        return price;
+        return Money.toPesos(priceCentavos);
+    }
+
+    public long getPriceCentavos() {
+        return priceCentavos;
     }
 
     public void setPrice(double price) {
-        validatePrice(price);
-        this.price = price;
+        setPriceCentavos(toCentavos(price));
+    }
+
+    public void setPriceCentavos(long priceCentavos) {
+        validatePriceCentavos(priceCentavos);
+        long oldPrice = this.priceCentavos;
+        this.priceCentavos = priceCentavos;
+        if (oldPrice == priceCentavos) {
+            return;
+        }
+        VERSION.incrementAndGet(this);
+        for (ProductListener listener : listeners) {
+            listener.priceChanged(this, oldPrice);
+        }
     }
 
     public int getQuantity() {
-        return quantity;
+        return quantity.get();
     }
 
     public void setQuantity(int quantity) {
         validateQuantity(quantity);
-        this.quantity = quantity;
+        int oldQuantity = this.quantity.getAndSet(quantity);
+        fireQuantityChanged(oldQuantity, quantity);
+    }
+
+    public long getVersion() {
+        return version;
     }
 
     public Seller getSeller() {
@@ -82,21 +146,82 @@ public class Product {
     }
 
     public boolean isAvailable(int requestedQuantity) {
-        return quantity >= requestedQuantity && requestedQuantity > 0;
+        return quantity.get() >= requestedQuantity && requestedQuantity > 0;
+    }
+
+    public boolean tryReduceQuantity(int amount) {
+        if (amount <= 0) {
+            return false;
+        }
+        while (true) {
+            int current = quantity.get();
+            if (current < amount) {
+                return false;
+            }
+            if (quantity.compareAndSet(current, current - amount)) {
+                fireQuantityChanged(current, current - amount);
+                return true;
+            }
+        }
     }
 
     public void reduceQuantity(int amount) {
-        if (!isAvailable(amount)) {
+        if (!tryReduceQuantity(amount)) {
             throw new IllegalStateException("Insufficient stock");
         }
-        this.quantity -= amount;
     }
 
     public void increaseQuantity(int amount) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be greater than 0");
         }
-        this.quantity += amount;
+        while (true) {
+            int current = quantity.get();
+            if (current > Integer.MAX_VALUE - amount) {
+                throw new IllegalStateException("Quantity overflow");
+            }
+            if (quantity.compareAndSet(current, current + amount)) {
+                fireQuantityChanged(current, current + amount);
+                return;
+            }
+        }
+    }
+
+    int getInventorySlot() {
+        return inventorySlot;
+    }
+
+    void setInventorySlot(int inventorySlot) {
+        this.inventorySlot = inventorySlot;
+    }
+
+    PriceIndex.Key getPriceKey() {
+        return priceKey;
+    }
+
+    void setPriceKey(PriceIndex.Key priceKey) {
+        this.priceKey = priceKey;
+    }
+
+    public void addListener(ProductListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(ProductListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireQuantityChanged(int oldQuantity, int newQuantity) {
+        if (oldQuantity == newQuantity) {
+            return;
+        }
+        VERSION.incrementAndGet(this);
+        for (ProductListener listener : listeners) {
+            listener.quantityChanged(this, oldQuantity, newQuantity);
+        }
     }
 
     @Override
@@ -106,18 +231,16 @@ public class Product {
         if (obj == null || getClass() != obj.getClass())
             return false;
         Product product = (Product) obj;
-        return Double.compare(product.price, price) == 0 &&
-                Objects.equals(name, product.name) &&
-                Objects.equals(seller, product.seller);
+        return id == product.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, price, seller);
+        return Long.hashCode(id);
     }
 
     @Override
     public String toString() {
-        return "Product{name='" + name + "', price=" + price + ", quantity=" + quantity + "}";
+        return "Product{id=" + id + ", name='" + name + "', price=" + Money.format(priceCentavos) + ", quantity=" + quantity.get() + "}";
     }
 }
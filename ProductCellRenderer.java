@@ -0,0 +1,66 @@
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.Component;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class ProductCellRenderer extends DefaultTableCellRenderer {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_CACHED_ROWS = 4096;
+
+    private final transient Map<Product, CachedRow> cache = new IdentityHashMap<>();
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+            boolean hasFocus, int row, int column) {
+        ProductTableModel model = (ProductTableModel) table.getModel();
+        Product product = model.getProductAt(table.convertRowIndexToModel(row));
+        int modelColumn = table.convertColumnIndexToModel(column);
+        Object text;
+        switch (modelColumn) {
+            case ProductTableModel.PRICE_COLUMN:
+                text = cachedRow(product).price;
+                break;
+            case ProductTableModel.QUANTITY_COLUMN:
+                text = cachedRow(product).quantity;
+                break;
+            case ProductTableModel.SELLER_COLUMN:
+                text = product.getSeller().getUsername();
+                break;
+            default:
+                text = product.getName();
+        }
+        super.getTableCellRendererComponent(table, text, isSelected, hasFocus, row, column);
+        setHorizontalAlignment(modelColumn == ProductTableModel.PRICE_COLUMN
+                || modelColumn == ProductTableModel.QUANTITY_COLUMN ? SwingConstants.RIGHT : SwingConstants.LEFT);
+        return this;
+    }
+
+    private CachedRow cachedRow(Product product) {
+        long version = product.getVersion();
+        CachedRow cached = cache.get(product);
+        if (cached != null && cached.version == version) {
+            return cached;
+        }
+        if (cached == null && cache.size() >= MAX_CACHED_ROWS) {
+            cache.clear();
+        }
+        cached = new CachedRow(version, "₱" + Money.format(product.getPriceCentavos()),
+                Integer.toString(product.getQuantity()));
+        cache.put(product, cached);
+        return cached;
+    }
+
+    private static final class CachedRow {
+        private final long version;
+        private final String price;
+        private final String quantity;
+
+        private CachedRow(long version, String price, String quantity) {
+            this.version = version;
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+}
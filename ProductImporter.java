@@ -0,0 +1,602 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ProductImporter {
+    private static final int WINDOW_BYTES = 32 << 20;
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int MAX_REPORTED_ERRORS = 10000;
+    private static final int NAME = 0;
+    private static final int PRICE = 1;
+    private static final int QUANTITY = 2;
+    private static final String[] FIELD_NAMES = {"name", "price", "quantity"};
+
+    public enum Format {
+        CSV,
+        JSONL;
+
+        public static Format of(Path path) {
+            String file = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            return file.endsWith(".jsonl") || file.endsWith(".ndjson") ? JSONL : CSV;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public ProductImporter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ProductImporter(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    public Report importFile(Seller seller, Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        return importFile(seller, path, Format.of(path));
+    }
+
+    public Report importFile(Seller seller, Path path, Format format) throws IOException {
+        if (seller == null) {
+            throw new IllegalArgumentException("Seller cannot be null");
+        }
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        long started = System.nanoTime();
+        Report report = new Report();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long linesBefore = 0;
+            int[] columns = {0, 1, 2};
+            while (position < size) {
+                long length = Math.min(WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = position + length == size ? (int) length : lastNewline(window, (int) length) + 1;
+                if (end == 0) {
+                    throw new IOException("Line longer than " + WINDOW_BYTES + " bytes at byte " + position);
+                }
+                int start = 0;
+                if (position == 0 && format == Format.CSV) {
+                    int headerEnd = nextLineStart(window, 0, end);
+                    if (readHeader(window, headerEnd, columns)) {
+                        start = headerEnd;
+                        linesBefore++;
+                    }
+                }
+
+                List<Chunk> chunks = split(window, start, end, format, columns, seller);
+                if (!chunks.isEmpty()) {
+                    pool.invoke(new ParseTask(chunks, 0, chunks.size()));
+                }
+                for (Chunk chunk : chunks) {
+                    for (RowError error : chunk.errors) {
+                        report.addError(linesBefore + error.line, error.message);
+                    }
+                    if (!chunk.products.isEmpty()) {
+                        seller.addProducts(chunk.products);
+                    }
+                    report.rows += chunk.rows;
+                    report.imported += chunk.products.size();
+                    linesBefore += chunk.lines;
+                }
+                position += end;
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - started;
+        return report;
+    }
+
+    private static int lastNewline(MappedByteBuffer window, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int nextLineStart(MappedByteBuffer window, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static boolean readHeader(MappedByteBuffer window, int end, int[] columns) throws IOException {
+        Parser parser = new Parser(window, Format.CSV, columns, null);
+        List<String> fields;
+        try {
+            fields = parser.splitCsv(0, parser.trimLineEnd(0, end));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        int[] found = {-1, -1, -1};
+        boolean header = false;
+        for (int i = 0; i < fields.size(); i++) {
+            String field = fields.get(i).trim().toLowerCase(Locale.ROOT);
+            for (int f = 0; f < FIELD_NAMES.length; f++) {
+                if (FIELD_NAMES[f].equals(field)) {
+                    found[f] = i;
+                    header = true;
+                }
+            }
+        }
+        if (!header) {
+            return false;
+        }
+        for (int f = 0; f < FIELD_NAMES.length; f++) {
+            if (found[f] < 0) {
+                throw new IOException("CSV header is missing the " + FIELD_NAMES[f] + " column");
+            }
+        }
+        System.arraycopy(found, 0, columns, 0, found.length);
+        return true;
+    }
+
+    private static List<Chunk> split(MappedByteBuffer window, int start, int end, Format format, int[] columns,
+            Seller seller) {
+        List<Chunk> chunks = new ArrayList<>();
+        while (start < end) {
+            int chunkEnd = start + CHUNK_BYTES >= end ? end : nextLineStart(window, start + CHUNK_BYTES, end);
+            chunks.add(new Chunk(new Parser(window, format, columns, seller), start, chunkEnd));
+            start = chunkEnd;
+        }
+        return chunks;
+    }
+
+    private static final class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Chunk> chunks;
+        private final int from;
+        private final int to;
+
+        private ParseTask(List<Chunk> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                chunks.get(from).parse();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(chunks, from, middle), new ParseTask(chunks, middle, to));
+        }
+    }
+
+    private static final class Chunk {
+        private final Parser parser;
+        private final int start;
+        private final int end;
+        private final List<Product> products = new ArrayList<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private long lines;
+        private long rows;
+
+        private Chunk(Parser parser, int start, int end) {
+            this.parser = parser;
+            this.start = start;
+            this.end = end;
+        }
+
+        private void parse() {
+            int lineStart = start;
+            while (lineStart < end) {
+                int next = nextLineStart(parser.window, lineStart, end);
+                lines++;
+                int lineEnd = parser.trimLineEnd(lineStart, next);
+                if (!parser.isBlank(lineStart, lineEnd)) {
+                    rows++;
+                    try {
+                        products.add(parser.parseRow(lineStart, lineEnd));
+                    } catch (IllegalArgumentException | ArithmeticException e) {
+                        errors.add(new RowError(lines, e.getMessage()));
+                    }
+                }
+                lineStart = next;
+            }
+        }
+    }
+
+    private static final class Parser {
+        private final MappedByteBuffer window;
+        private final Format format;
+        private final int[] columns;
+        private final Seller seller;
+        private final String[] values = new String[3];
+        private byte[] scratch = new byte[256];
+        private int position;
+
+        private Parser(MappedByteBuffer window, Format format, int[] columns, Seller seller) {
+            this.window = window;
+            this.format = format;
+            this.columns = columns;
+            this.seller = seller;
+        }
+
+        private int trimLineEnd(int start, int end) {
+            while (end > start && (window.get(end - 1) == '\n' || window.get(end - 1) == '\r')) {
+                end--;
+            }
+            return end;
+        }
+
+        private boolean isBlank(int start, int end) {
+            for (int i = start; i < end; i++) {
+                byte b = window.get(i);
+                if (b != ' ' && b != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Product parseRow(int start, int end) {
+            values[NAME] = null;
+            values[PRICE] = null;
+            values[QUANTITY] = null;
+            if (format == Format.CSV) {
+                readCsv(start, end);
+            } else {
+                readJson(start, end);
+            }
+            for (int f = 0; f < values.length; f++) {
+                if (values[f] == null) {
+                    throw new IllegalArgumentException("Missing " + FIELD_NAMES[f]);
+                }
+            }
+            long priceCentavos = Money.parse(values[PRICE]);
+            int quantity;
+            try {
+                quantity = Integer.parseInt(values[QUANTITY].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid quantity: " + values[QUANTITY]);
+            }
+            return new Product(values[NAME].trim(), priceCentavos, quantity, seller);
+        }
+
+        private List<String> splitCsv(int start, int end) {
+            List<String> fields = new ArrayList<>();
+            position = start;
+            while (position <= end) {
+                fields.add(csvField(end));
+                position++;
+            }
+            return fields;
+        }
+
+        private void readCsv(int start, int end) {
+            position = start;
+            int column = 0;
+            int found = 0;
+            while (position <= end) {
+                String field = csvField(end);
+                for (int f = 0; f < columns.length; f++) {
+                    if (columns[f] == column) {
+                        values[f] = field;
+                        found++;
+                    }
+                }
+                column++;
+                position++;
+            }
+            if (found < columns.length) {
+                throw new IllegalArgumentException("Expected at least " + (max(columns) + 1) + " columns but found "
+                        + column);
+            }
+        }
+
+        private String csvField(int end) {
+            int length = 0;
+            if (position < end && window.get(position) == '"') {
+                position++;
+                while (true) {
+                    if (position >= end) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    byte b = window.get(position++);
+                    if (b == '"') {
+                        if (position < end && window.get(position) == '"') {
+                            position++;
+                        } else {
+                            break;
+                        }
+                    }
+                    length = put(length, b);
+                }
+                if (position < end && window.get(position) != ',') {
+                    throw new IllegalArgumentException("Unexpected character after quoted field");
+                }
+            } else {
+                while (position < end && window.get(position) != ',') {
+                    length = put(length, window.get(position++));
+                }
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void readJson(int start, int end) {
+            position = start;
+            skipWhitespace(end);
+            expect('{', end);
+            skipWhitespace(end);
+            if (position < end && window.get(position) == '}') {
+                position++;
+            } else {
+                while (true) {
+                    skipWhitespace(end);
+                    expect('"', end);
+                    String key = jsonString(end);
+                    skipWhitespace(end);
+                    expect(':', end);
+                    skipWhitespace(end);
+                    String value = jsonValue(end);
+                    for (int f = 0; f < FIELD_NAMES.length; f++) {
+                        if (FIELD_NAMES[f].equals(key)) {
+                            values[f] = value;
+                        }
+                    }
+                    skipWhitespace(end);
+                    if (position < end && window.get(position) == ',') {
+                        position++;
+                        continue;
+                    }
+                    expect('}', end);
+                    break;
+                }
+            }
+            skipWhitespace(end);
+            if (position < end) {
+                throw new IllegalArgumentException("Unexpected content after JSON object");
+            }
+        }
+
+        private String jsonValue(int end) {
+            if (position >= end) {
+                throw new IllegalArgumentException("Missing JSON value");
+            }
+            byte first = window.get(position);
+            if (first == '"') {
+                position++;
+                return jsonString(end);
+            }
+            if (first == '{' || first == '[') {
+                throw new IllegalArgumentException("Nested JSON values are not supported");
+            }
+            int length = 0;
+            while (position < end) {
+                byte b = window.get(position);
+                if (b == ',' || b == '}' || b == ' ' || b == '\t') {
+                    break;
+                }
+                length = put(length, b);
+                position++;
+            }
+            String token = new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+            return "null".equals(token) ? null : token;
+        }
+
+        private String jsonString(int end) {
+            int length = 0;
+            while (true) {
+                if (position >= end) {
+                    throw new IllegalArgumentException("Unterminated JSON string");
+                }
+                byte b = window.get(position++);
+                if (b == '"') {
+                    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+                }
+                if (b != '\\') {
+                    length = put(length, b);
+                    continue;
+                }
+                if (position >= end) {
+                    throw new IllegalArgumentException("Unterminated JSON string");
+                }
+                byte escaped = window.get(position++);
+                switch (escaped) {
+                    case 'n':
+                        length = put(length, (byte) '\n');
+                        break;
+                    case 't':
+                        length = put(length, (byte) '\t');
+                        break;
+                    case 'r':
+                        length = put(length, (byte) '\r');
+                        break;
+                    case 'b':
+                        length = put(length, (byte) '\b');
+                        break;
+                    case 'f':
+                        length = put(length, (byte) '\f');
+                        break;
+                    case 'u':
+                        int codePoint = hex(end);
+                        if (Character.isHighSurrogate((char) codePoint) && position + 1 < end
+                                && window.get(position) == '\\' && window.get(position + 1) == 'u') {
+                            position += 2;
+                            int low = hex(end);
+                            if (!Character.isLowSurrogate((char) low)) {
+                                throw new IllegalArgumentException("Invalid surrogate pair in JSON string");
+                            }
+                            codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                        }
+                        length = putCodePoint(length, codePoint);
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        length = put(length, escaped);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid escape in JSON string");
+                }
+            }
+        }
+
+        private int hex(int end) {
+            if (position + 4 > end) {
+                throw new IllegalArgumentException("Invalid unicode escape in JSON string");
+            }
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(window.get(position++), 16);
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Invalid unicode escape in JSON string");
+                }
+                value = value << 4 | digit;
+            }
+            return value;
+        }
+
+        private void skipWhitespace(int end) {
+            while (position < end && (window.get(position) == ' ' || window.get(position) == '\t')) {
+                position++;
+            }
+        }
+
+        private void expect(char c, int end) {
+            if (position >= end || window.get(position) != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at column " + (position + 1));
+            }
+            position++;
+        }
+
+        private int put(int length, byte b) {
+            if (length == scratch.length) {
+                byte[] grown = new byte[length * 2];
+                System.arraycopy(scratch, 0, grown, 0, length);
+                scratch = grown;
+            }
+            scratch[length] = b;
+            return length + 1;
+        }
+
+        private int putCodePoint(int length, int codePoint) {
+            if (codePoint < 0x80) {
+                return put(length, (byte) codePoint);
+            }
+            if (codePoint < 0x800) {
+                length = put(length, (byte) (0xC0 | codePoint >> 6));
+            } else if (codePoint < 0x10000) {
+                length = put(length, (byte) (0xE0 | codePoint >> 12));
+                length = put(length, (byte) (0x80 | codePoint >> 6 & 0x3F));
+            } else {
+                length = put(length, (byte) (0xF0 | codePoint >> 18));
+                length = put(length, (byte) (0x80 | codePoint >> 12 & 0x3F));
+                length = put(length, (byte) (0x80 | codePoint >> 6 & 0x3F));
+            }
+            return put(length, (byte) (0x80 | codePoint & 0x3F));
+        }
+
+        private static int max(int[] values) {
+            int max = 0;
+            for (int value : values) {
+                max = Math.max(max, value);
+            }
+            return max;
+        }
+    }
+
+    public static final class RowError {
+        private final long line;
+        private final String message;
+
+        private RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    public static final class Report {
+        private final List<RowError> errors = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long errorCount;
+        private long elapsedNanos;
+
+        private void addError(long line, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        public long getRowCount() {
+            return rows;
+        }
+
+        public long getImportedCount() {
+            return imported;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public List<RowError> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public StringBuilder appendTo(StringBuilder report, int maxErrors) {
+            report.append("IMPORT REPORT\n");
+            report.append("Rows read: ").append(rows).append("\n");
+            report.append("Imported: ").append(imported).append("\n");
+            report.append("Rejected: ").append(errorCount).append("\n");
+            report.append(String.format("Elapsed: %.1f s%n", elapsedNanos / 1e9));
+            int shown = Math.min(maxErrors, errors.size());
+            if (shown > 0) {
+                report.append("\nErrors:\n");
+                for (int i = 0; i < shown; i++) {
+                    report.append("- ").append(errors.get(i)).append("\n");
+                }
+                if (errorCount > shown) {
+                    report.append("... and ").append(errorCount - shown).append(" more\n");
+                }
+            }
+            return report;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ProductListModel extends AbstractListModel<Product> implements ProductListener {
+    private static final long serialVersionUID = 1L;
+    private static final int FRAME_MILLIS = 16;
+    private static final int BULK_THRESHOLD = 64;
+
+    private final transient Catalog catalog;
+    private final transient Map<Long, Product> pending;
+    private final AtomicBoolean scheduled;
+    private final Timer timer;
+    private Product[] rows;
+    private int size;
+
+    public ProductListModel(Catalog catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        this.catalog = catalog;
+        this.pending = new ConcurrentHashMap<>();
+        this.scheduled = new AtomicBoolean();
+        this.timer = new Timer(FRAME_MILLIS, e -> flush());
+        this.timer.setRepeats(false);
+        this.rows = new Product[16];
+        catalog.addListener(this);
+        catalog.getAvailableProducts().forEach(this::append);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public Product getElementAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return rows[index];
+    }
+
+    public int indexOf(Product product) {
+        if (product == null) {
+            return -1;
+        }
+        int index = search(product.getId());
+        return index >= 0 ? index : -1;
+    }
+
+    public void dispose() {
+        catalog.removeListener(this);
+        timer.stop();
+        pending.clear();
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        markDirty(product);
+    }
+
+    @Override
+    public void nameChanged(Product product, String oldName) {
+        markDirty(product);
+    }
+
+    @Override
+    public void priceChanged(Product product, long oldPriceCentavos) {
+        markDirty(product);
+    }
+
+    @Override
+    public void quantityChanged(Product product, int oldQuantity, int newQuantity) {
+        markDirty(product);
+    }
+
+    private void markDirty(Product product) {
+        pending.put(product.getId(), product);
+        if (scheduled.compareAndSet(false, true)) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                timer.restart();
+            } else {
+                SwingUtilities.invokeLater(timer::restart);
+            }
+        }
+    }
+
+    private void flush() {
+        scheduled.set(false);
+        List<Product> changed = new ArrayList<>(pending.size());
+        for (Long id : pending.keySet()) {
+            Product product = pending.remove(id);
+            if (product != null) {
+                changed.add(product);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        changed.sort(Comparator.comparingLong(Product::getId));
+        if (changed.size() > BULK_THRESHOLD) {
+            merge(changed);
+        } else {
+            changed.forEach(this::apply);
+        }
+    }
+
+    private void apply(Product product) {
+        int index = search(product.getId());
+        boolean listed = index >= 0;
+        boolean available = product.getQuantity() > 0;
+        if (listed && available) {
+            fireContentsChanged(this, index, index);
+        } else if (listed) {
+            System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+            rows[--size] = null;
+            fireIntervalRemoved(this, index, index);
+        } else if (available) {
+            int insertAt = -index - 1;
+            ensureCapacity(size + 1);
+            System.arraycopy(rows, insertAt, rows, insertAt + 1, size - insertAt);
+            rows[insertAt] = product;
+            size++;
+            fireIntervalAdded(this, insertAt, insertAt);
+        }
+    }
+
+    private void merge(List<Product> changed) {
+        int oldSize = size;
+        Product[] merged = new Product[Math.max(16, size + changed.size())];
+        int count = 0;
+        int row = 0;
+        int first = -1;
+        int last = -1;
+        for (Product product : changed) {
+            long id = product.getId();
+            while (row < size && rows[row].getId() < id) {
+                merged[count++] = rows[row++];
+            }
+            boolean listed = row < size && rows[row].getId() == id;
+            if (listed) {
+                row++;
+            }
+            boolean available = product.getQuantity() > 0;
+            if (listed || available) {
+                if (first < 0) {
+                    first = count;
+                }
+                last = available ? count : count - 1;
+            }
+            if (available) {
+                merged[count++] = product;
+            }
+        }
+        while (row < size) {
+            merged[count++] = rows[row++];
+        }
+        rows = merged;
+        size = count;
+
+        if (size < oldSize) {
+            fireIntervalRemoved(this, size, oldSize - 1);
+        } else if (size > oldSize) {
+            fireIntervalAdded(this, oldSize, size - 1);
+        }
+        int end = size == oldSize ? last : Math.min(size, oldSize) - 1;
+        if (first >= 0 && end >= first) {
+            fireContentsChanged(this, first, end);
+        }
+    }
+
+    private void append(Product product) {
+        ensureCapacity(size + 1);
+        rows[size++] = product;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(capacity, rows.length * 2));
+        }
+    }
+
+    private int search(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = rows[mid].getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,13 @@
+public interface ProductListener {
+    default void productAdded(Product product) {
+    }
+
+    default void nameChanged(Product product, String oldName) {
+    }
+
+    default void priceChanged(Product product, long oldPriceCentavos) {
+    }
+
+    default void quantityChanged(Product product, int oldQuantity, int newQuantity) {
+    }
+}
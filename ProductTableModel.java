@@ -0,0 +1,81 @@
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import javax.swing.table.AbstractTableModel;
+
+public class ProductTableModel extends AbstractTableModel implements ListDataListener {
+    private static final long serialVersionUID = 1L;
+
+    public static final int NAME_COLUMN = 0;
+    public static final int PRICE_COLUMN = 1;
+    public static final int QUANTITY_COLUMN = 2;
+    public static final int SELLER_COLUMN = 3;
+
+    private static final String[] COLUMN_NAMES = {"Name", "Price", "Quantity", "Seller"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, Long.class, Integer.class, String.class};
+
+    private final ProductListModel products;
+
+    public ProductTableModel(ProductListModel products) {
+        if (products == null) {
+            throw new IllegalArgumentException("Product list cannot be null");
+        }
+        this.products = products;
+        products.addListDataListener(this);
+    }
+
+    public Product getProductAt(int row) {
+        return products.getElementAt(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return products.getSize();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Product product = products.getElementAt(row);
+        switch (column) {
+            case NAME_COLUMN:
+                return product.getName();
+            case PRICE_COLUMN:
+                return product.getPriceCentavos();
+            case QUANTITY_COLUMN:
+                return product.getQuantity();
+            case SELLER_COLUMN:
+                return product.getSeller().getUsername();
+            default:
+                throw new IllegalArgumentException("Invalid column: " + column);
+        }
+    }
+
+    @Override
+    public void intervalAdded(ListDataEvent e) {
+        fireTableRowsInserted(e.getIndex0(), e.getIndex1());
+    }
+
+    @Override
+    public void intervalRemoved(ListDataEvent e) {
+        fireTableRowsDeleted(e.getIndex0(), e.getIndex1());
+    }
+
+    @Override
+    public void contentsChanged(ListDataEvent e) {
+        fireTableRowsUpdated(e.getIndex0(), e.getIndex1());
+    }
+}
@@ -10,4 +10,6 @@ public interface PurchasingInterface {
     void clearCart();
 
     double getCartTotal();
+
+    long getCartTotalCentavos();
 }
@@ -0,0 +1,89 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Reservation {
+    private static final int LIVE = 0;
+    private static final int CONSUMED = 1;
+    private static final int RELEASED = 2;
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id;
+    private final ReservationManager manager;
+    private final Product product;
+    private final int quantity;
+    private final long deadline;
+    private final AtomicInteger state;
+
+    Reservation previous;
+    Reservation next;
+    long remainingRounds;
+    int bucket = -1;
+
+    Reservation(ReservationManager manager, Product product, int quantity, long deadline) {
+        this.id = NEXT_ID.getAndIncrement();
+        this.manager = manager;
+        this.product = product;
+        this.quantity = quantity;
+        this.deadline = deadline;
+        this.state = new AtomicInteger(LIVE);
+    }
+
+    static void advanceIdsPast(long id) {
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    ReservationManager getManager() {
+        return manager;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public boolean isLive() {
+        return state.get() == LIVE;
+    }
+
+    public boolean consume() {
+        if (!state.compareAndSet(LIVE, CONSUMED)) {
+            return false;
+        }
+        manager.cancelTimeout(this);
+        return true;
+    }
+
+    public boolean release() {
+        if (!state.compareAndSet(LIVE, RELEASED)) {
+            return false;
+        }
+        manager.cancelTimeout(this);
+        product.increaseQuantity(quantity);
+        return true;
+    }
+
+    boolean expire() {
+        if (!state.compareAndSet(LIVE, RELEASED)) {
+            return false;
+        }
+        product.increaseQuantity(quantity);
+        manager.expired(this);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation{id=" + id + ", product='" + product.getName() + "', quantity=" + quantity + ", live=" + isLive() + "}";
+    }
+}
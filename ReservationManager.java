@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ReservationManager {
+    private static final int DEFAULT_BUCKETS = 512;
+    private static final long DEFAULT_TICK_MILLIS = 100;
+
+    private final long ttlMillis;
+    private final TimingWheel wheel;
+    private final ScheduledExecutorService ticker;
+    private final List<Reservation> expired;
+    private volatile Journal journal;
+
+    public ReservationManager(long ttlMillis) {
+        this(ttlMillis, DEFAULT_BUCKETS, DEFAULT_TICK_MILLIS);
+    }
+
+    public ReservationManager(long ttlMillis, int bucketCount, long tickMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Reservation TTL must be greater than 0");
+        }
+        this.ttlMillis = ttlMillis;
+        this.wheel = new TimingWheel(bucketCount, tickMillis, System.currentTimeMillis());
+        this.expired = new ArrayList<>();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public Reservation reserve(Product product, int quantity) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (!CheckoutTransaction.tryReduceQuantity(product, quantity)) {
+            return null;
+        }
+        return hold(product, quantity);
+    }
+
+    Reservation hold(Product product, int quantity) {
+        Reservation reservation = new Reservation(this, product, quantity, System.currentTimeMillis() + ttlMillis);
+        wheel.schedule(reservation);
+        return reservation;
+    }
+
+    void cancelTimeout(Reservation reservation) {
+        wheel.cancel(reservation);
+    }
+
+    void expired(Reservation reservation) {
+        Journal current = journal;
+        if (current != null) {
+            current.recordReservationExpired(reservation);
+        }
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    public int getLiveReservationCount() {
+        return wheel.size();
+    }
+
+    public synchronized int expireDue() {
+        wheel.advance(System.currentTimeMillis(), expired::add);
+        int released = 0;
+        for (Reservation reservation : expired) {
+            if (reservation.expire()) {
+                released++;
+            }
+        }
+        expired.clear();
+        return released;
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,622 @@
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class SalesAnalytics {
+    public static final long HOUR_MILLIS = 60L * 60 * 1000;
+    public static final int MAX_HOURS = 24 * 366;
+
+    private static final int SELLER_LEAF_ORDERS = 1 << 14;
+    private static final int TASKS_PER_THREAD = 2;
+    private static final int DENSE_BYTES_PER_PRODUCT = 20;
+    private static final long DENSE_BUDGET_BYTES = 64L * 1024 * 1024;
+    private static final int DISPLAYED_SELLERS = 10;
+    private static final String SPARKS = "▁▂▃▄▅▆▇█";
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("HH:00").withZone(ZONE);
+
+    private final OrderLedger ledger;
+    private final ForkJoinPool pool;
+
+    public SalesAnalytics(OrderLedger ledger) {
+        this(ledger, ForkJoinPool.commonPool());
+    }
+
+    public SalesAnalytics(OrderLedger ledger, ForkJoinPool pool) {
+        if (ledger == null) {
+            throw new IllegalArgumentException("Order ledger cannot be null");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.ledger = ledger;
+        this.pool = pool;
+    }
+
+    public OrderLedger getLedger() {
+        return ledger;
+    }
+
+    public Report summarize(int topK, int hours) {
+        return summarize(null, topK, currentHistogramStart(hours), hours);
+    }
+
+    public Report summarize(Seller seller, int topK, int hours) {
+        if (seller == null) {
+            throw new IllegalArgumentException("Seller cannot be null");
+        }
+        return summarize(seller, topK, currentHistogramStart(hours), hours);
+    }
+
+    public Report summarize(Seller seller, int topK, long histogramStartMillis, int hours) {
+        if (topK < 0) {
+            throw new IllegalArgumentException("Top-k cannot be negative");
+        }
+        if (hours < 0 || hours > MAX_HOURS) {
+            throw new IllegalArgumentException("Hours must be between 0 and " + MAX_HOURS);
+        }
+        long started = System.nanoTime();
+        Query query;
+        if (seller == null) {
+            int segmentCount = ledger.getSegmentCount();
+            OrderLedger.Segment[] segments = new OrderLedger.Segment[segmentCount];
+            int[] orderCounts = new int[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = ledger.getSegment(i);
+                orderCounts[i] = segments[i].getOrderCount();
+            }
+            int leafCount = Math.max(1, Math.min(segmentCount, pool.getParallelism() * TASKS_PER_THREAD));
+            int leafSize = (segmentCount + leafCount - 1) / leafCount;
+            long minProductId = ledger.getMinProductId();
+            long range = ledger.getMaxProductId() - minProductId + 1;
+            boolean dense = range > 0
+                    && range * DENSE_BYTES_PER_PRODUCT * leaves(segmentCount, leafSize) <= DENSE_BUDGET_BYTES;
+            query = new Query(-1, histogramStartMillis, hours, segments, orderCounts, null, segmentCount, leafSize,
+                    minProductId, dense ? (int) range : 0);
+        } else {
+            int sellerIndex = ledger.findUser(seller);
+            OrderLedger.IdList ids = sellerIndex < 0 ? null : ledger.ordersOf(seller);
+            int size = ids == null ? 0 : ids.size();
+            long[] orderIds = ids == null ? new long[0] : ids.array();
+            int leafSize = Math.max(SELLER_LEAF_ORDERS, size / (pool.getParallelism() * TASKS_PER_THREAD));
+            query = new Query(sellerIndex, histogramStartMillis, hours, null, null, orderIds, size, leafSize, 0, 0);
+        }
+        Totals totals = query.size == 0 ? query.newTotals() : pool.invoke(new ScanTask(query, 0, query.size));
+        return new Report(ledger, totals, topK, histogramStartMillis, System.nanoTime() - started);
+    }
+
+    public static long hourStart(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZONE).truncatedTo(ChronoUnit.HOURS).toInstant().toEpochMilli();
+    }
+
+    private long currentHistogramStart(int hours) {
+        return hourStart(System.currentTimeMillis()) - Math.max(0, hours - 1) * HOUR_MILLIS;
+    }
+
+    private static int leaves(int size, int leafSize) {
+        if (size <= leafSize) {
+            return 1;
+        }
+        int middle = size >>> 1;
+        return leaves(middle, leafSize) + leaves(size - middle, leafSize);
+    }
+
+    private final class Query {
+        private final int sellerFilter;
+        private final long histogramStart;
+        private final int hours;
+        private final OrderLedger.Segment[] segments;
+        private final int[] orderCounts;
+        private final long[] orderIds;
+        private final int size;
+        private final int leafSize;
+        private final long denseBase;
+        private final int denseRange;
+
+        private Query(int sellerFilter, long histogramStart, int hours, OrderLedger.Segment[] segments,
+                int[] orderCounts, long[] orderIds, int size, int leafSize, long denseBase, int denseRange) {
+            this.sellerFilter = sellerFilter;
+            this.histogramStart = histogramStart;
+            this.hours = hours;
+            this.segments = segments;
+            this.orderCounts = orderCounts;
+            this.orderIds = orderIds;
+            this.size = size;
+            this.leafSize = leafSize;
+            this.denseBase = denseBase;
+            this.denseRange = denseRange;
+        }
+
+        private Totals newTotals() {
+            return new Totals(hours, denseBase, denseRange);
+        }
+
+        private Totals scan(int from, int to) {
+            Totals totals = newTotals();
+            if (segments != null) {
+                for (int s = from; s < to; s++) {
+                    ByteBuffer orders = segments[s].getOrders();
+                    ByteBuffer lines = segments[s].getLines();
+                    for (int o = 0; o < orderCounts[s]; o++) {
+                        scanOrder(orders, lines, o, totals);
+                    }
+                }
+                return totals;
+            }
+            OrderLedger.Segment segment = null;
+            long first = 0;
+            long end = 0;
+            ByteBuffer orders = null;
+            ByteBuffer lines = null;
+            for (int i = from; i < to; i++) {
+                long id = orderIds[i];
+                if (id < first || id >= end) {
+                    segment = ledger.findSegment(id);
+                    first = segment.getFirstOrderId();
+                    end = first + segment.getOrderCount();
+                    orders = segment.getOrders();
+                    lines = segment.getLines();
+                }
+                if (id >= end) {
+                    continue;
+                }
+                scanOrder(orders, lines, (int) (id - first), totals);
+            }
+            return totals;
+        }
+
+        private void scanOrder(ByteBuffer orders, ByteBuffer lines, int index, Totals totals) {
+            int base = index * OrderLedger.ORDER_BYTES;
+            long elapsed = orders.getLong(base + OrderLedger.ORDER_TIMESTAMP) - histogramStart;
+            int bucket = elapsed >= 0 && elapsed < hours * HOUR_MILLIS ? (int) (elapsed / HOUR_MILLIS) : -1;
+            int firstLine = orders.getInt(base + OrderLedger.ORDER_FIRST_LINE);
+            int end = firstLine + orders.getInt(base + OrderLedger.ORDER_LINE_COUNT);
+            boolean matched = false;
+            for (int line = firstLine; line < end; line++) {
+                int offset = line * OrderLedger.LINE_BYTES;
+                int seller = lines.getInt(offset + OrderLedger.LINE_SELLER);
+                if (sellerFilter >= 0 && seller != sellerFilter) {
+                    continue;
+                }
+                int quantity = lines.getInt(offset + OrderLedger.LINE_QUANTITY);
+                long amount = Money.multiply(lines.getLong(offset + OrderLedger.LINE_UNIT_PRICE), quantity);
+                totals.revenue = Money.add(totals.revenue, amount);
+                totals.units += quantity;
+                totals.lines++;
+                totals.products.add(lines.getLong(offset + OrderLedger.LINE_PRODUCT), amount, quantity, seller);
+                if (bucket >= 0) {
+                    totals.hourlyRevenue[bucket] = Money.add(totals.hourlyRevenue[bucket], amount);
+                    totals.hourlyUnits[bucket] += quantity;
+                }
+                matched = true;
+            }
+            if (matched) {
+                totals.orders++;
+            }
+        }
+    }
+
+    private static final class ScanTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Query query;
+        private final int from;
+        private final int to;
+
+        private ScanTask(Query query, int from, int to) {
+            this.query = query;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= query.leafSize) {
+                return query.scan(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask right = new ScanTask(query, middle, to);
+            right.fork();
+            Totals left = new ScanTask(query, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    private static final class Totals {
+        private long revenue;
+        private long units;
+        private long orders;
+        private long lines;
+        private final ProductTotals products;
+        private final long[] hourlyRevenue;
+        private final long[] hourlyUnits;
+
+        private Totals(int hours, long denseBase, int denseRange) {
+            this.products = new ProductTotals(1 << 10, denseBase, denseRange);
+            this.hourlyRevenue = new long[hours];
+            this.hourlyUnits = new long[hours];
+        }
+
+        private Totals merge(Totals other) {
+            revenue = Money.add(revenue, other.revenue);
+            units += other.units;
+            orders += other.orders;
+            lines += other.lines;
+            products.addAll(other.products);
+            for (int i = 0; i < hourlyRevenue.length; i++) {
+                hourlyRevenue[i] = Money.add(hourlyRevenue[i], other.hourlyRevenue[i]);
+                hourlyUnits[i] += other.hourlyUnits[i];
+            }
+            return this;
+        }
+    }
+
+    private interface EntryVisitor {
+        void visit(long key, long revenue, long units, long seller);
+    }
+
+    private static final class ProductTotals {
+        private static final long EMPTY = Long.MIN_VALUE;
+        private static final int STRIDE = 4;
+        private static final int REVENUE = 1;
+        private static final int UNITS = 2;
+        private static final int SELLER = 3;
+
+        private final long denseBase;
+        private final long[] dense;
+        private final int[] denseSellers;
+        private long[] table;
+        private int mask;
+        private int size;
+
+        private ProductTotals(int capacity, long denseBase, int denseRange) {
+            this.denseBase = denseBase;
+            this.dense = denseRange == 0 ? null : new long[denseRange * 2];
+            this.denseSellers = denseRange == 0 ? null : new int[denseRange];
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            table = new long[capacity * STRIDE];
+            mask = capacity - 1;
+            for (int i = 0; i < table.length; i += STRIDE) {
+                table[i] = EMPTY;
+            }
+        }
+
+        private void add(long key, long amount, long quantity, int seller) {
+            if (dense != null) {
+                long index = key - denseBase;
+                if (index >= 0 && index < denseSellers.length) {
+                    int i = (int) index;
+                    dense[2 * i] = Money.add(dense[2 * i], amount);
+                    dense[2 * i + 1] += quantity;
+                    denseSellers[i] = seller;
+                    return;
+                }
+            }
+            int slot = ((int) (key * 0x9E3779B97F4A7C15L >>> 32) & mask) * STRIDE;
+            while (true) {
+                long existing = table[slot];
+                if (existing == key) {
+                    table[slot + REVENUE] = Money.add(table[slot + REVENUE], amount);
+                    table[slot + UNITS] += quantity;
+                    return;
+                }
+                if (existing == EMPTY) {
+                    table[slot] = key;
+                    table[slot + REVENUE] = amount;
+                    table[slot + UNITS] = quantity;
+                    table[slot + SELLER] = seller;
+                    if (++size * 2 > mask + 1) {
+                        grow();
+                    }
+                    return;
+                }
+                slot = (slot + STRIDE) & (table.length - 1);
+            }
+        }
+
+        private void addAll(ProductTotals other) {
+            if (dense != null && other.dense != null && denseBase == other.denseBase
+                    && dense.length == other.dense.length) {
+                for (int i = 0; i < denseSellers.length; i++) {
+                    if (other.dense[2 * i + 1] != 0) {
+                        dense[2 * i] = Money.add(dense[2 * i], other.dense[2 * i]);
+                        dense[2 * i + 1] += other.dense[2 * i + 1];
+                        denseSellers[i] = other.denseSellers[i];
+                    }
+                }
+                other.forEachHashed((key, revenue, units, seller) -> add(key, revenue, units, (int) seller));
+            } else {
+                other.forEach((key, revenue, units, seller) -> add(key, revenue, units, (int) seller));
+            }
+        }
+
+        private void grow() {
+            long[] old = table;
+            allocate((mask + 1) * 2);
+            size = 0;
+            for (int i = 0; i < old.length; i += STRIDE) {
+                if (old[i] != EMPTY) {
+                    add(old[i], old[i + REVENUE], old[i + UNITS], (int) old[i + SELLER]);
+                }
+            }
+        }
+
+        private void forEach(EntryVisitor visitor) {
+            if (dense != null) {
+                for (int i = 0; i < denseSellers.length; i++) {
+                    if (dense[2 * i + 1] != 0) {
+                        visitor.visit(denseBase + i, dense[2 * i], dense[2 * i + 1], denseSellers[i]);
+                    }
+                }
+            }
+            forEachHashed(visitor);
+        }
+
+        private void forEachHashed(EntryVisitor visitor) {
+            for (int i = 0; i < table.length; i += STRIDE) {
+                if (table[i] != EMPTY) {
+                    visitor.visit(table[i], table[i + REVENUE], table[i + UNITS], table[i + SELLER]);
+                }
+            }
+        }
+    }
+
+    private static final class Ranking {
+        private final long[] keys;
+        private final long[] revenue;
+        private final long[] units;
+        private int count;
+
+        private Ranking(int limit) {
+            this.keys = new long[limit];
+            this.revenue = new long[limit];
+            this.units = new long[limit];
+        }
+
+        private void offer(long key, long entryRevenue, long entryUnits) {
+            if (keys.length == 0 || count == keys.length && !ranksBefore(key, entryRevenue, entryUnits, count - 1)) {
+                return;
+            }
+            int position = count < keys.length ? count++ : count - 1;
+            while (position > 0 && ranksBefore(key, entryRevenue, entryUnits, position - 1)) {
+                keys[position] = keys[position - 1];
+                revenue[position] = revenue[position - 1];
+                units[position] = units[position - 1];
+                position--;
+            }
+            keys[position] = key;
+            revenue[position] = entryRevenue;
+            units[position] = entryUnits;
+        }
+
+        private boolean ranksBefore(long key, long entryRevenue, long entryUnits, int index) {
+            if (entryRevenue != revenue[index]) {
+                return entryRevenue > revenue[index];
+            }
+            if (entryUnits != units[index]) {
+                return entryUnits > units[index];
+            }
+            return key < keys[index];
+        }
+    }
+
+    public static final class ProductSales {
+        private final long productId;
+        private final Product product;
+        private final long revenueCentavos;
+        private final long units;
+
+        private ProductSales(long productId, Product product, long revenueCentavos, long units) {
+            this.productId = productId;
+            this.product = product;
+            this.revenueCentavos = revenueCentavos;
+            this.units = units;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public long getRevenueCentavos() {
+            return revenueCentavos;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        @Override
+        public String toString() {
+            return (product == null ? "#" + productId : product.getName()) + ": ₱" + Money.format(revenueCentavos)
+                    + " (" + units + " units)";
+        }
+    }
+
+    public static final class SellerSales {
+        private final String seller;
+        private final long revenueCentavos;
+        private final long units;
+
+        private SellerSales(String seller, long revenueCentavos, long units) {
+            this.seller = seller;
+            this.revenueCentavos = revenueCentavos;
+            this.units = units;
+        }
+
+        public String getSeller() {
+            return seller;
+        }
+
+        public long getRevenueCentavos() {
+            return revenueCentavos;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        @Override
+        public String toString() {
+            return seller + ": ₱" + Money.format(revenueCentavos) + " (" + units + " units)";
+        }
+    }
+
+    public static final class Report {
+        private final long revenueCentavos;
+        private final long units;
+        private final long orders;
+        private final long lines;
+        private final List<ProductSales> topProducts;
+        private final List<SellerSales> sellers;
+        private final long histogramStartMillis;
+        private final long[] hourlyRevenue;
+        private final long[] hourlyUnits;
+        private final long elapsedNanos;
+
+        private Report(OrderLedger ledger, Totals totals, int topK, long histogramStartMillis, long elapsedNanos) {
+            this.revenueCentavos = totals.revenue;
+            this.units = totals.units;
+            this.orders = totals.orders;
+            this.lines = totals.lines;
+            Catalog catalog = ledger.getCatalog();
+            Ranking ranking = new Ranking(topK);
+            ProductTotals bySeller = new ProductTotals(1 << 4, 0, 0);
+            totals.products.forEach((productId, revenue, units, seller) -> {
+                ranking.offer(productId, revenue, units);
+                bySeller.add(seller, revenue, units, (int) seller);
+            });
+            List<ProductSales> products = new ArrayList<>(ranking.count);
+            for (int i = 0; i < ranking.count; i++) {
+                products.add(new ProductSales(ranking.keys[i], catalog.getProduct(ranking.keys[i]), ranking.revenue[i],
+                        ranking.units[i]));
+            }
+            this.topProducts = Collections.unmodifiableList(products);
+            List<SellerSales> sellerSales = new ArrayList<>(bySeller.size);
+            bySeller.forEach((seller, revenue, units, ignored) -> sellerSales.add(
+                    new SellerSales(ledger.getUser((int) seller).getUsername(), revenue, units)));
+            sellerSales.sort(Comparator.comparingLong(SellerSales::getRevenueCentavos).reversed()
+                    .thenComparing(Comparator.comparingLong(SellerSales::getUnits).reversed())
+                    .thenComparing(SellerSales::getSeller));
+            this.sellers = Collections.unmodifiableList(sellerSales);
+            this.histogramStartMillis = histogramStartMillis;
+            this.hourlyRevenue = totals.hourlyRevenue;
+            this.hourlyUnits = totals.hourlyUnits;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRevenueCentavos() {
+            return revenueCentavos;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        public long getOrderCount() {
+            return orders;
+        }
+
+        public long getLineCount() {
+            return lines;
+        }
+
+        public List<ProductSales> getTopProducts() {
+            return topProducts;
+        }
+
+        public List<SellerSales> getSellers() {
+            return sellers;
+        }
+
+        public long getHistogramStartMillis() {
+            return histogramStartMillis;
+        }
+
+        public int getHours() {
+            return hourlyRevenue.length;
+        }
+
+        public long getHourlyRevenueCentavos(int hour) {
+            return hourlyRevenue[hour];
+        }
+
+        public long getHourlyUnits(int hour) {
+            return hourlyUnits[hour];
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public StringBuilder appendTo(StringBuilder report) {
+            report.append("Revenue: ₱");
+            Money.appendTo(report, revenueCentavos).append("\n");
+            report.append("Units Sold: ").append(units).append("\n");
+            report.append("Orders: ").append(orders).append("\n");
+            if (hourlyRevenue.length > 0) {
+                long windowRevenue = 0;
+                long windowUnits = 0;
+                long peak = 0;
+                int peakHour = -1;
+                for (int i = 0; i < hourlyRevenue.length; i++) {
+                    windowRevenue = Money.add(windowRevenue, hourlyRevenue[i]);
+                    windowUnits += hourlyUnits[i];
+                    if (hourlyRevenue[i] > peak) {
+                        peak = hourlyRevenue[i];
+                        peakHour = i;
+                    }
+                }
+                report.append("Last ").append(hourlyRevenue.length).append(" Hours: ₱");
+                Money.appendTo(report, windowRevenue).append(" (").append(windowUnits).append(" units)\n");
+                report.append("Hourly: ");
+                for (long revenue : hourlyRevenue) {
+                    double level = (double) revenue * SPARKS.length() / ((double) peak + 1);
+                    report.append(revenue == 0 ? '·' : SPARKS.charAt((int) Math.min(SPARKS.length() - 1, level)));
+                }
+                if (peakHour >= 0) {
+                    report.append(" (peak ");
+                    HOUR_FORMAT.formatTo(Instant.ofEpochMilli(histogramStartMillis + peakHour * HOUR_MILLIS), report);
+                    report.append(", ₱");
+                    Money.appendTo(report, peak).append(')');
+                }
+                report.append("\n");
+            }
+            if (!topProducts.isEmpty()) {
+                report.append("Top Products:\n");
+                for (int i = 0; i < topProducts.size(); i++) {
+                    report.append(i + 1).append(". ").append(topProducts.get(i)).append("\n");
+                }
+            }
+            if (sellers.size() > 1) {
+                report.append("Revenue by Seller:\n");
+                for (int i = 0; i < Math.min(DISPLAYED_SELLERS, sellers.size()); i++) {
+                    report.append(i + 1).append(". ").append(sellers.get(i)).append("\n");
+                }
+                if (sellers.size() > DISPLAYED_SELLERS) {
+                    report.append("... and ").append(sellers.size() - DISPLAYED_SELLERS).append(" more\n");
+                }
+            }
+            return report;
+        }
+
+        @Override
+        public String toString() {
+            return appendTo(new StringBuilder()).toString();
+        }
+    }
+}
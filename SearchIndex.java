@@ -0,0 +1,491 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+public class SearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int MAX_SCANNED_POSTINGS = 4096;
+    private static final int MAX_EXAMINED_PRODUCTS = 1 << 16;
+    private static final Product[] NO_PRODUCTS = new Product[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Product[]> names = new TreeMap<>();
+    private final GramTable grams = new GramTable();
+
+    public void add(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        lock.writeLock().lock();
+        try {
+            index(product, Catalog.normalizeName(product.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Collection<Product> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        lock.writeLock().lock();
+        try {
+            for (Product product : batch) {
+                index(product, Catalog.normalizeName(product.getName()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rename(Product product, String oldName) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(product, Catalog.normalizeName(oldName));
+            index(product, Catalog.normalizeName(product.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Product> search(String query, int limit) {
+        return search(query, limit, product -> true);
+    }
+
+    public List<Product> search(String query, int limit, Predicate<Product> filter) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter cannot be null");
+        }
+        String normalized = Catalog.normalizeName(query);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            List<Product> results = new ArrayList<>(limit);
+            Map<Product, Boolean> seen = new IdentityHashMap<>();
+            collectPrefixMatches(normalized, limit, filter, results, seen);
+            if (results.size() < limit) {
+                collectWordMatches(normalized, limit, filter, results, seen);
+            }
+            if (results.size() < limit) {
+                collectFuzzyMatches(normalized, limit, filter, results, seen);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Product> searchPrefix(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        String normalized = Catalog.normalizeName(prefix);
+        lock.readLock().lock();
+        try {
+            List<Product> results = new ArrayList<>(limit);
+            collectPrefixMatches(normalized, limit, product -> true, results, new IdentityHashMap<>());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectPrefixMatches(String prefix, int limit, Predicate<Product> filter, List<Product> results,
+            Map<Product, Boolean> seen) {
+        int examined = 0;
+        for (Product[] matches : names.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (Product product : matches) {
+                if (++examined > MAX_EXAMINED_PRODUCTS) {
+                    return;
+                }
+                if (filter.test(product) && seen.put(product, Boolean.TRUE) == null) {
+                    results.add(product);
+                    if (results.size() == limit) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void collectWordMatches(String query, int limit, Predicate<Product> filter, List<Product> results,
+            Map<Product, Boolean> seen) {
+        long[] queryGrams = grams(query, false);
+        if (queryGrams.length == 0) {
+            return;
+        }
+        Postings[] lists = new Postings[queryGrams.length];
+        for (int i = 0; i < queryGrams.length; i++) {
+            lists[i] = grams.get(queryGrams[i]);
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        Postings shortest = lists[0];
+        int end = Math.min(shortest.size, MAX_EXAMINED_PRODUCTS);
+        int candidates = 0;
+        for (int i = 0; i < end && candidates < MAX_SCANNED_POSTINGS; i++) {
+            Product product = shortest.products[i];
+            if (seen.containsKey(product) || !filter.test(product)) {
+                continue;
+            }
+            candidates++;
+            if (!containsAll(lists, shortest.ids[i])) {
+                continue;
+            }
+            String name = Catalog.normalizeName(product.getName());
+            if (name.startsWith(query) || name.contains(" " + query)) {
+                seen.put(product, Boolean.TRUE);
+                results.add(product);
+                if (results.size() == limit) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean containsAll(Postings[] lists, long id) {
+        for (int i = 1; i < lists.length; i++) {
+            if (lists[i].indexOf(id) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collectFuzzyMatches(String query, int limit, Predicate<Product> filter, List<Product> results,
+            Map<Product, Boolean> seen) {
+        long[] queryGrams = grams(query, false);
+        if (queryGrams.length == 0) {
+            return;
+        }
+        Postings[] lists = new Postings[queryGrams.length];
+        int listCount = 0;
+        for (long gram : queryGrams) {
+            Postings postings = grams.get(gram);
+            if (postings != null) {
+                lists[listCount++] = postings;
+            }
+        }
+        int maxEdits = query.length() <= 6 ? 1 : 2;
+        int threshold = Math.max(1, queryGrams.length - GRAM_LENGTH * maxEdits);
+        if (listCount < threshold) {
+            return;
+        }
+        Arrays.sort(lists, 0, listCount, (a, b) -> Integer.compare(a.size, b.size));
+
+        int scanned = listCount - threshold + 1;
+        long postingsToScan = 0;
+        for (int i = 0; i < scanned; i++) {
+            postingsToScan += lists[i].size;
+        }
+        while (scanned > 1 && postingsToScan > MAX_SCANNED_POSTINGS) {
+            postingsToScan -= lists[--scanned].size;
+            threshold++;
+        }
+
+        long[] ids = new long[(int) Math.min(postingsToScan, (long) scanned * MAX_SCANNED_POSTINGS)];
+        int idCount = 0;
+        for (int i = 0; i < scanned; i++) {
+            Postings postings = lists[i];
+            int taken = Math.min(postings.size, MAX_SCANNED_POSTINGS);
+            System.arraycopy(postings.ids, postings.size - taken, ids, idCount, taken);
+            idCount += taken;
+        }
+        Arrays.sort(ids, 0, idCount);
+
+        int[] scores = new int[idCount];
+        int candidates = 0;
+        for (int start = 0, next; start < idCount; start = next) {
+            next = start + 1;
+            while (next < idCount && ids[next] == ids[start]) {
+                next++;
+            }
+            ids[candidates] = ids[start];
+            scores[candidates++] = next - start;
+        }
+        for (int i = scanned; i < listCount; i++) {
+            Postings postings = lists[i];
+            int position = 0;
+            for (int c = 0; c < candidates && position < postings.size; c++) {
+                if (scores[c] + listCount - i < threshold) {
+                    continue;
+                }
+                position = postings.seek(ids[c], position);
+                if (position < postings.size && postings.ids[position] == ids[c]) {
+                    scores[c]++;
+                }
+            }
+        }
+
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1);
+        int needed = limit - results.size();
+        for (int c = 0; c < candidates; c++) {
+            int score = scores[c];
+            if (score < threshold) {
+                continue;
+            }
+            Product product = find(lists, scanned, ids[c]);
+            if (seen.containsKey(product) || !filter.test(product)) {
+                continue;
+            }
+            best.add(new Match(product, score));
+            if (best.size() > needed) {
+                best.poll();
+            }
+        }
+        Match[] ranked = best.toArray(new Match[0]);
+        Arrays.sort(ranked, Collections.reverseOrder());
+        for (Match match : ranked) {
+            seen.put(match.product, Boolean.TRUE);
+            results.add(match.product);
+        }
+    }
+
+    private static Product find(Postings[] lists, int count, long id) {
+        for (int i = 0; i < count; i++) {
+            int index = lists[i].indexOf(id);
+            if (index >= 0) {
+                return lists[i].products[index];
+            }
+        }
+        throw new IllegalStateException("Posting " + id + " not found");
+    }
+
+    private void index(Product product, String name) {
+        Product[] matches = names.get(name);
+        Product[] updated = insert(matches == null ? NO_PRODUCTS : matches, product);
+        if (updated != matches) {
+            names.put(name, updated);
+        }
+        for (long gram : grams(name, true)) {
+            grams.getOrCreate(gram).add(product);
+        }
+    }
+
+    private void unindex(Product product, String name) {
+        Product[] matches = names.get(name);
+        if (matches != null) {
+            Product[] updated = remove(matches, product);
+            if (updated.length == 0) {
+                names.remove(name);
+            } else if (updated != matches) {
+                names.put(name, updated);
+            }
+        }
+        for (long gram : grams(name, true)) {
+            Postings postings = grams.get(gram);
+            if (postings != null) {
+                postings.remove(product);
+            }
+        }
+    }
+
+    private static long[] grams(String text, boolean padEnd) {
+        String padded = padEnd ? " " + text + " " : " " + text;
+        int count = padded.length() - GRAM_LENGTH + 1;
+        if (count <= 0) {
+            return new long[0];
+        }
+        long[] result = new long[count];
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            long gram = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            boolean duplicate = false;
+            for (int j = 0; j < unique && !duplicate; j++) {
+                duplicate = result[j] == gram;
+            }
+            if (!duplicate) {
+                result[unique++] = gram;
+            }
+        }
+        return unique == count ? result : Arrays.copyOf(result, unique);
+    }
+
+    private static int indexOf(Product[] products, int size, Product product) {
+        long id = product.getId();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = products[mid].getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static Product[] insert(Product[] products, Product product) {
+        int index = indexOf(products, products.length, product);
+        if (index >= 0) {
+            return products;
+        }
+        int insertAt = -index - 1;
+        Product[] updated = new Product[products.length + 1];
+        System.arraycopy(products, 0, updated, 0, insertAt);
+        updated[insertAt] = product;
+        System.arraycopy(products, insertAt, updated, insertAt + 1, products.length - insertAt);
+        return updated;
+    }
+
+    private static Product[] remove(Product[] products, Product product) {
+        int index = indexOf(products, products.length, product);
+        if (index < 0) {
+            return products;
+        }
+        Product[] updated = new Product[products.length - 1];
+        System.arraycopy(products, 0, updated, 0, index);
+        System.arraycopy(products, index + 1, updated, index, products.length - index - 1);
+        return updated;
+    }
+
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private Product[] products = new Product[4];
+        private int size;
+
+        private void add(Product product) {
+            long id = product.getId();
+            int insertAt = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = indexOf(id);
+                if (index >= 0) {
+                    return;
+                }
+                insertAt = -index - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                products = Arrays.copyOf(products, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(products, insertAt, products, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            products[insertAt] = product;
+            size++;
+        }
+
+        private boolean remove(Product product) {
+            int index = indexOf(product.getId());
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(products, index + 1, products, index, size - index - 1);
+            products[--size] = null;
+            return true;
+        }
+
+        private int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        private int seek(long id, int from) {
+            int step = 1;
+            while (from + step < size && ids[from + step] < id) {
+                from += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(ids, from, Math.min(from + step + 1, size), id);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private static final class GramTable {
+        private long[] keys = new long[1024];
+        private Postings[] values = new Postings[1024];
+        private int size;
+
+        private Postings get(long gram) {
+            int mask = keys.length - 1;
+            for (int slot = hash(gram) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == gram) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        private Postings getOrCreate(long gram) {
+            int mask = keys.length - 1;
+            int slot = hash(gram) & mask;
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == gram) {
+                    return values[slot];
+                }
+            }
+            Postings postings = new Postings();
+            keys[slot] = gram;
+            values[slot] = postings;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return postings;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long gram) {
+            long h = gram * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+        private final Product product;
+        private final int score;
+
+        private Match(Product product, int score) {
+            this.product = product;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (score != other.score) {
+                return Integer.compare(score, other.score);
+            }
+            return Long.compare(other.product.getId(), product.getId());
+        }
+    }
+}
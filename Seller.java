@@ -1,54 +1,237 @@
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class Seller extends User {
+public class Seller extends User implements ProductListener {
+    private static final int SUMMARY_TOP_PRODUCTS = 5;
+    private static final int SUMMARY_HOURS = 24;
     private List<Product> products;
+    private Map<String, Product> productsByName;
+    private volatile Catalog catalog;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Metrics metrics;
+    private volatile SalesAnalytics salesAnalytics;
 
     public Seller(String username, String email) {
         super(username, email);
         this.products = new ArrayList<>();
+        this.productsByName = new HashMap<>();
+    }
+
+    Seller(long id, String username, String email) {
+        super(id, username, email);
+        this.products = new ArrayList<>();
+        this.productsByName = new HashMap<>();
     }
 
     public void uploadProduct(String name, double price, int quantity) {
-        Product product = new Product(name, price, quantity, this);
-        products.add(product);
+        Metrics current = metrics;
+        if (current == null) {
+            addProduct(new Product(name, price, quantity, this));
+            return;
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            addProduct(new Product(name, price, quantity, this));
+            success = true;
+        } finally {
+            current.record(Metrics.Operation.UPLOAD_PRODUCT, start, success);
+        }
+    }
+
+    public Product uploadProductCentavos(String name, long priceCentavos, int quantity) {
+        Metrics current = metrics;
+        long start = current == null ? 0 : System.nanoTime();
+        boolean success = false;
+        try {
+            Product product = new Product(name, priceCentavos, quantity, this);
+            addProduct(product);
+            success = true;
+            return product;
+        } finally {
+            if (current != null) {
+                current.record(Metrics.Operation.UPLOAD_PRODUCT, start, success);
+            }
+        }
     }
 
-    public List<Product> getProducts() {
+    void addProduct(Product product) {
+        if (product.getSeller() != this) {
+            throw new IllegalArgumentException("Product belongs to another seller");
+        }
+        synchronized (this) {
+            products.add(product);
+            productsByName.putIfAbsent(Catalog.normalizeName(product.getName()), product);
+            version.incrementAndGet();
+        }
+        product.addListener(this);
+        Catalog current = catalog;
+        if (current != null) {
+            current.addProduct(product);
+        }
+    }
+
+    void addProducts(List<Product> batch) {
+        for (Product product : batch) {
+            if (product.getSeller() != this) {
+                throw new IllegalArgumentException("Product belongs to another seller");
+            }
+        }
+        synchronized (this) {
+            for (Product product : batch) {
+                products.add(product);
+                productsByName.putIfAbsent(Catalog.normalizeName(product.getName()), product);
+            }
+            version.incrementAndGet();
+        }
+        for (Product product : batch) {
+            product.addListener(this);
+        }
+        Catalog current = catalog;
+        if (current != null) {
+            current.addProducts(batch);
+        }
+    }
+
+    public synchronized List<Product> getProducts() {
         return new ArrayList<>(products);
     }
 
-    public Product findProduct(String name) {
-        return products.stream()
-                .filter(p -> p.getName().equalsIgnoreCase(name))
-                .findFirst()
-                .orElse(null);
+    public synchronized int getProductCount() {
+        return products.size();
+    }
+
+    public synchronized Product findProduct(String name) {
+        return productsByName.get(Catalog.normalizeName(name));
     }
 
     public void updateProductQuantity(String productName, int newQuantity) {
-        Product product = findProduct(productName);
-        if (product != null) {
-            product.setQuantity(newQuantity);
+        Metrics current = metrics;
+        long start = current == null ? 0 : System.nanoTime();
+        boolean success = false;
+        try {
+            Product product = findProduct(productName);
+            if (product != null) {
+                product.setQuantity(newQuantity);
+                success = true;
+            }
+        } finally {
+            if (current != null) {
+                current.record(Metrics.Operation.UPDATE_QUANTITY, start, success);
+            }
+        }
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SalesAnalytics getSalesAnalytics() {
+        return salesAnalytics;
+    }
+
+    public void setSalesAnalytics(SalesAnalytics salesAnalytics) {
+        this.salesAnalytics = salesAnalytics;
+    }
+
+    public SalesAnalytics.Report getSalesSummary() {
+        SalesAnalytics analytics = salesAnalytics;
+        return analytics == null ? null : analytics.summarize(this, SUMMARY_TOP_PRODUCTS, SUMMARY_HOURS);
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    void setCatalog(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public synchronized void nameChanged(Product product, String oldName) {
+        String oldKey = Catalog.normalizeName(oldName);
+        if (productsByName.get(oldKey) == product) {
+            productsByName.remove(oldKey);
+            products.stream()
+                    .filter(p -> p != product && Catalog.normalizeName(p.getName()).equals(oldKey))
+                    .findFirst()
+                    .ifPresent(p -> productsByName.put(oldKey, p));
         }
+        String newKey = Catalog.normalizeName(product.getName());
+        Product existing = productsByName.get(newKey);
+        if (existing == null || existing.getId() > product.getId()) {
+            productsByName.put(newKey, product);
+        }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void priceChanged(Product product, long oldPriceCentavos) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void quantityChanged(Product product, int oldQuantity, int newQuantity) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public long getVersion() {
+        SalesAnalytics analytics = salesAnalytics;
+        return version.get() + (analytics == null ? 0 : analytics.getLedger().getOrderCount(this));
     }
 
     @Override
     public String getDashboard() {
+        return getDashboard(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public String getDashboard(int offset, int limit) {
+        validatePage(offset, limit);
+        SalesAnalytics.Report sales = getSalesSummary();
         StringBuilder dashboard = new StringBuilder();
+        synchronized (this) {
+            appendDashboard(dashboard, sales, offset, limit);
+        }
+        return dashboard.toString();
+    }
+
+    private void appendDashboard(StringBuilder dashboard, SalesAnalytics.Report sales, int offset, int limit) {
         dashboard.append("SELLER DASHBOARD \n");
         dashboard.append("Username: ").append(getUsername()).append("\n");
         dashboard.append("Email: ").append(getEmail()).append("\n");
         dashboard.append("Total Products Listed: ").append(products.size()).append("\n\n");
+        if (sales != null && sales.getOrderCount() == 0) {
+            dashboard.append("Sales Summary: no sales yet.\n\n");
+        } else if (sales != null) {
+            sales.appendTo(dashboard.append("Sales Summary:\n")).append("\n");
+        }
 
         if (products.isEmpty()) {
             dashboard.append("No products listed yet.\n");
         } else {
-            dashboard.append("Products:\n");
-            products.forEach(p -> {
-                dashboard.append(String.format("- %s: ₱%.2f (Qty: %d)\n",
-                        p.getName(), p.getPrice(), p.getQuantity()));
+            int end = (int) Math.min(products.size(), (long) offset + limit);
+            dashboard.append("Products");
+            if (offset >= end) {
+                dashboard.append(" (none on this page, ").append(products.size()).append(" total)");
+            } else if (offset > 0 || end < products.size()) {
+                dashboard.append(" (").append(offset + 1).append('-').append(end)
+                        .append(" of ").append(products.size()).append(')');
+            }
+            dashboard.append(":\n");
+            products.subList(Math.min(offset, end), end).forEach(p -> {
+                dashboard.append("- ").append(p.getName()).append(": ₱");
+                Money.appendTo(dashboard, p.getPriceCentavos())
+                        .append(" (Qty: ").append(p.getQuantity()).append(")\n");
             });
         }
-        return dashboard.toString();
     }
 }
@@ -0,0 +1,185 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Snapshot {
+    private static final int MAGIC = 0x4D4B5431;
+    private static final int VERSION = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path path;
+    private final long journalPosition;
+    private final List<Journal.HeldLine> heldLines;
+
+    private Snapshot(Path path, long journalPosition, List<Journal.HeldLine> heldLines) {
+        this.path = path;
+        this.journalPosition = journalPosition;
+        this.heldLines = heldLines;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getJournalPosition() {
+        return journalPosition;
+    }
+
+    List<Journal.HeldLine> getHeldLines() {
+        return Collections.unmodifiableList(heldLines);
+    }
+
+    public static Path write(Marketplace marketplace, Path directory) throws IOException {
+        Journal journal = marketplace.getJournal();
+        long journalPosition = journal == null ? 0 : journal.getPosition();
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, journalPosition, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        try (OutputStream file = Files.newOutputStream(temp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalPosition);
+
+            List<Seller> sellers = new ArrayList<>(marketplace.getSellers());
+            out.writeInt(sellers.size());
+            for (Seller seller : sellers) {
+                out.writeLong(seller.getId());
+                writeString(out, seller.getUsername());
+                writeString(out, seller.getEmail());
+                List<Product> products = seller.getProducts();
+                out.writeInt(products.size());
+                for (Product product : products) {
+                    out.writeLong(product.getId());
+                    out.writeLong(product.getPriceCentavos());
+                    out.writeInt(product.getQuantity());
+                    writeString(out, product.getName());
+                }
+            }
+
+            List<Buyer> buyers = new ArrayList<>(marketplace.getBuyers());
+            out.writeInt(buyers.size());
+            for (Buyer buyer : buyers) {
+                out.writeLong(buyer.getId());
+                writeString(out, buyer.getUsername());
+                writeString(out, buyer.getEmail());
+                List<CartItem> lines = buyer.copyCartLines();
+                out.writeInt(lines.size());
+                for (CartItem line : lines) {
+                    Reservation reservation = line.getReservation();
+                    out.writeLong(line.getProduct().getId());
+                    out.writeInt(line.getQuantity());
+                    out.writeLong(reservation != null && reservation.isLive() ? reservation.getId() : 0);
+                }
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    public static Path findLatest(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        Path latest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (latest == null || file.getFileName().toString().compareTo(latest.getFileName().toString()) > 0) {
+                    latest = file;
+                }
+            }
+        }
+        return latest;
+    }
+
+    public static void deleteOlderThan(Path directory, Path keep) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().compareTo(keep.getFileName().toString()) < 0) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    public static Snapshot load(Path path, Marketplace marketplace) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + path);
+            }
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Not a marketplace snapshot: " + path);
+        }
+        long journalPosition = in.getLong();
+        Catalog catalog = marketplace.getCatalog();
+
+        int sellerCount = in.getInt();
+        for (int i = 0; i < sellerCount; i++) {
+            Seller seller = marketplace.restoreSeller(in.getLong(), readString(in), readString(in));
+            int productCount = in.getInt();
+            for (int j = 0; j < productCount; j++) {
+                long id = in.getLong();
+                long price = in.getLong();
+                int quantity = in.getInt();
+                Product product = new Product(id, readString(in), price, Math.max(quantity, 1), seller);
+                seller.addProduct(product);
+                if (quantity == 0) {
+                    product.setQuantity(0);
+                }
+            }
+        }
+
+        List<Journal.HeldLine> heldLines = new ArrayList<>();
+        int buyerCount = in.getInt();
+        for (int i = 0; i < buyerCount; i++) {
+            Buyer buyer = marketplace.restoreBuyer(in.getLong(), readString(in), readString(in));
+            int lineCount = in.getInt();
+            for (int j = 0; j < lineCount; j++) {
+                Product product = catalog.getProduct(in.getLong());
+                int quantity = in.getInt();
+                long reservationId = in.getLong();
+                if (product == null) {
+                    continue;
+                }
+                buyer.restoreCartLine(product, quantity);
+                if (reservationId != 0) {
+                    heldLines.add(new Journal.HeldLine(buyer, product, quantity, reservationId));
+                }
+            }
+        }
+        return new Snapshot(path, journalPosition, heldLines);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.function.Consumer;
+
+public class TimingWheel {
+    private final Reservation[] buckets;
+    private final int mask;
+    private final long tickMillis;
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(int bucketCount, long tickMillis, long startMillis) {
+        if (bucketCount <= 0 || Integer.bitCount(bucketCount) != 1) {
+            throw new IllegalArgumentException("Bucket count must be a power of two");
+        }
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be greater than 0");
+        }
+        this.buckets = new Reservation[bucketCount];
+        this.mask = bucketCount - 1;
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public synchronized void schedule(Reservation reservation) {
+        long deadlineTick = Math.max(reservation.getDeadline() / tickMillis, currentTick + 1);
+        long ticks = deadlineTick - currentTick;
+        int bucket = (int) (deadlineTick & mask);
+        reservation.remainingRounds = (ticks - 1) / buckets.length;
+        reservation.bucket = bucket;
+        reservation.previous = null;
+        reservation.next = buckets[bucket];
+        if (buckets[bucket] != null) {
+            buckets[bucket].previous = reservation;
+        }
+        buckets[bucket] = reservation;
+        size++;
+    }
+
+    public synchronized boolean cancel(Reservation reservation) {
+        if (reservation.bucket < 0) {
+            return false;
+        }
+        unlink(reservation);
+        return true;
+    }
+
+    public synchronized int advance(long nowMillis, Consumer<Reservation> expired) {
+        long targetTick = nowMillis / tickMillis;
+        int count = 0;
+        while (currentTick < targetTick) {
+            currentTick++;
+            int bucket = (int) (currentTick & mask);
+            Reservation reservation = buckets[bucket];
+            while (reservation != null) {
+                Reservation next = reservation.next;
+                if (reservation.remainingRounds <= 0) {
+                    unlink(reservation);
+                    expired.accept(reservation);
+                    count++;
+                } else {
+                    reservation.remainingRounds--;
+                }
+                reservation = next;
+            }
+        }
+        return count;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void unlink(Reservation reservation) {
+        int bucket = reservation.bucket;
+        if (reservation.previous != null) {
+            reservation.previous.next = reservation.next;
+        } else {
+            buckets[bucket] = reservation.next;
+        }
+        if (reservation.next != null) {
+            reservation.next.previous = reservation.previous;
+        }
+        reservation.previous = null;
+        reservation.next = null;
+        reservation.bucket = -1;
+        size--;
+    }
+}
@@ -0,0 +1,186 @@
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class TypeaheadField extends JTextField {
+    private static final long serialVersionUID = 1L;
+    private static final int DEBOUNCE_MILLIS = 40;
+
+    private final transient Catalog catalog;
+    private final int limit;
+    private final transient Consumer<Product> onSelect;
+    private final DefaultListModel<Product> matches;
+    private final JList<Product> matchList;
+    private final JPopupMenu popup;
+    private final Timer debounce;
+    private final transient ExecutorService searcher;
+    private final AtomicLong latestQuery;
+
+    public TypeaheadField(Catalog catalog, int limit, Consumer<Product> onSelect) {
+        super(30);
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        if (onSelect == null) {
+            throw new IllegalArgumentException("Selection handler cannot be null");
+        }
+        this.catalog = catalog;
+        this.limit = limit;
+        this.onSelect = onSelect;
+        this.matches = new DefaultListModel<>();
+        this.matchList = new JList<>(matches);
+        this.popup = new JPopupMenu();
+        this.debounce = new Timer(DEBOUNCE_MILLIS, e -> search(getText()));
+        this.debounce.setRepeats(false);
+        this.searcher = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "typeahead-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.latestQuery = new AtomicLong();
+
+        matchList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        matchList.setFocusable(false);
+        matchList.setVisibleRowCount(Math.min(limit, 8));
+        matchList.setCellRenderer(new DefaultListCellRenderer() {
+            private final StringBuilder text = new StringBuilder(64);
+
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof Product) {
+                    Product product = (Product) value;
+                    text.setLength(0);
+                    text.append(product.getName()).append(" - ₱");
+                    Money.appendTo(text, product.getPriceCentavos()).append(" by ")
+                            .append(product.getSeller().getUsername());
+                    setText(text.toString());
+                }
+                return this;
+            }
+        });
+        matchList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = matchList.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    matchList.setSelectedIndex(index);
+                    acceptSelection();
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(matchList);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        popup.setFocusable(false);
+        popup.add(scrollPane);
+
+        getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+        });
+
+        bindKey("DOWN", "typeahead-next", () -> moveSelection(1));
+        bindKey("UP", "typeahead-previous", () -> moveSelection(-1));
+        bindKey("ENTER", "typeahead-accept", this::acceptSelection);
+        bindKey("ESCAPE", "typeahead-hide", this::hideMatches);
+    }
+
+    private void bindKey(String key, String name, Runnable action) {
+        getInputMap().put(KeyStroke.getKeyStroke(key), name);
+        getActionMap().put(name, new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    private void search(String query) {
+        long request = latestQuery.incrementAndGet();
+        searcher.execute(() -> {
+            if (request != latestQuery.get()) {
+                return;
+            }
+            List<Product> results = catalog.searchAvailableProducts(query, limit);
+            SwingUtilities.invokeLater(() -> {
+                if (request == latestQuery.get()) {
+                    showMatches(results);
+                }
+            });
+        });
+    }
+
+    private void showMatches(List<Product> results) {
+        matches.clear();
+        results.forEach(matches::addElement);
+        if (results.isEmpty() || !isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+        matchList.setSelectedIndex(0);
+        popup.setPopupSize(getWidth(), popup.getPreferredSize().height);
+        popup.show(this, 0, getHeight());
+        requestFocusInWindow();
+    }
+
+    private void moveSelection(int delta) {
+        if (!popup.isVisible() || matches.isEmpty()) {
+            return;
+        }
+        int index = Math.floorMod(matchList.getSelectedIndex() + delta, matches.size());
+        matchList.setSelectedIndex(index);
+        matchList.ensureIndexIsVisible(index);
+    }
+
+    private void hideMatches() {
+        latestQuery.incrementAndGet();
+        popup.setVisible(false);
+    }
+
+    private void acceptSelection() {
+        Product product = matchList.getSelectedValue();
+        hideMatches();
+        if (product != null) {
+            onSelect.accept(product);
+        }
+    }
+}
@@ -1,14 +1,24 @@
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class User {
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id;
     private String username;
     private String email;
     
     public User(String username, String email) {
+        this(NEXT_ID.getAndIncrement(), username, email);
+    }
+
+    User(long id, String username, String email) {
         validateUsername(username);
         validateEmail(email);
+        this.id = id;
         this.username = username;
         this.email = email;
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
     }
     
     private void validateUsername(String username) {
@@ -29,6 +39,10 @@ public abstract class User {
         }
     }
     
+    public long getId() {
+        return id;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -48,6 +62,19 @@ public abstract class User {
     }
     
     public abstract String getDashboard();
+
+    public abstract String getDashboard(int offset, int limit);
+
+    public abstract long getVersion();
+
+    protected static void validatePage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+    }
     
     @Override
     public boolean equals(Object obj) {
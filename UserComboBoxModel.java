@@ -0,0 +1,101 @@
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import java.util.List;
+
+public class UserComboBoxModel extends AbstractListModel<User> implements ComboBoxModel<User> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient UserRegistry registry;
+    private final int searchLimit;
+    private transient List<User> rows;
+    private String filter;
+    private int size;
+    private Object selected;
+
+    public UserComboBoxModel(UserRegistry registry, int searchLimit) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Registry cannot be null");
+        }
+        if (searchLimit <= 0) {
+            throw new IllegalArgumentException("Search limit must be greater than 0");
+        }
+        this.registry = registry;
+        this.searchLimit = searchLimit;
+        this.filter = "";
+        this.rows = registry.getUsers();
+        this.size = rows.size();
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public User getElementAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return rows.get(index);
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if (item == null ? selected != null : !item.equals(selected)) {
+            selected = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    public int getSelectedIndex() {
+        if (!(selected instanceof User)) {
+            return -1;
+        }
+        int index = filter.isEmpty() ? registry.indexOf((User) selected) : rows.indexOf(selected);
+        return index < size ? index : -1;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    public void setFilter(String filter) {
+        String normalized = filter == null ? "" : filter.trim();
+        if (normalized.equals(this.filter)) {
+            refresh();
+            return;
+        }
+        this.filter = normalized;
+        int oldSize = size;
+        rows = normalized.isEmpty() ? registry.getUsers() : registry.searchByUsernamePrefix(normalized, searchLimit);
+        size = rows.size();
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (size > 0) {
+            fireIntervalAdded(this, 0, size - 1);
+        }
+        if (!normalized.isEmpty() && selected != null && !rows.contains(selected)) {
+            setSelectedItem(size > 0 ? rows.get(0) : null);
+        }
+    }
+
+    public void refresh() {
+        if (!filter.isEmpty()) {
+            String current = filter;
+            filter = "";
+            setFilter(current);
+            return;
+        }
+        int oldSize = size;
+        size = rows.size();
+        if (size > oldSize) {
+            fireIntervalAdded(this, oldSize, size - 1);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class UserRegistry {
+    private final Map<String, User> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, User> byEmail = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, User> bySearchKey = new ConcurrentSkipListMap<>();
+    private final Map<String, Integer> positions = new ConcurrentHashMap<>();
+    private final UserList<User> users = new UserList<>();
+    private final UserList<Seller> sellers = new UserList<>();
+    private final UserList<Buyer> buyers = new UserList<>();
+
+    public void register(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        if (byUsername.putIfAbsent(user.getUsername(), user) != null) {
+            throw new IllegalStateException("Username already taken: " + user.getUsername());
+        }
+        if (byEmail.putIfAbsent(emailKey(user.getEmail()), user) != null) {
+            byUsername.remove(user.getUsername(), user);
+            throw new IllegalStateException("Email already registered: " + user.getEmail());
+        }
+        bySearchKey.put(searchKey(user.getUsername()), user);
+        positions.put(user.getUsername(), users.append(user));
+        if (user instanceof Seller) {
+            sellers.add((Seller) user);
+        } else if (user instanceof Buyer) {
+            buyers.add((Buyer) user);
+        }
+    }
+
+    public boolean isUsernameTaken(String username) {
+        return username != null && byUsername.containsKey(username);
+    }
+
+    public boolean isEmailRegistered(String email) {
+        return email != null && byEmail.containsKey(emailKey(email));
+    }
+
+    public User findByUsername(String username) {
+        return username == null ? null : byUsername.get(username);
+    }
+
+    public User findByEmail(String email) {
+        return email == null ? null : byEmail.get(emailKey(email));
+    }
+
+    public Seller findSeller(String username) {
+        User user = findByUsername(username);
+        return user instanceof Seller ? (Seller) user : null;
+    }
+
+    public Buyer findBuyer(String username) {
+        User user = findByUsername(username);
+        return user instanceof Buyer ? (Buyer) user : null;
+    }
+
+    public List<User> searchByUsernamePrefix(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        String key = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT);
+        List<User> matches = new ArrayList<>(Math.min(limit, 64));
+        for (Map.Entry<String, User> entry : bySearchKey.tailMap(key).entrySet()) {
+            if (matches.size() == limit || !entry.getKey().startsWith(key)) {
+                break;
+            }
+            matches.add(entry.getValue());
+        }
+        return matches;
+    }
+
+    public int indexOf(User user) {
+        if (user == null) {
+            return -1;
+        }
+        Integer position = positions.get(user.getUsername());
+        return position != null && users.get(position) == user ? position : -1;
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    public List<User> getUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    public List<Seller> getSellers() {
+        return Collections.unmodifiableList(sellers);
+    }
+
+    public List<Buyer> getBuyers() {
+        return Collections.unmodifiableList(buyers);
+    }
+
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String searchKey(String username) {
+        return username.toLowerCase(Locale.ROOT) + '\0' + username;
+    }
+
+    public static final class UserList<T extends User> extends AbstractList<T> implements RandomAccess {
+        private volatile Object[] elements = new Object[16];
+        private volatile int size;
+
+        @Override
+        public boolean add(T user) {
+            append(user);
+            return true;
+        }
+
+        public synchronized int append(T user) {
+            if (user == null) {
+                throw new IllegalArgumentException("User cannot be null");
+            }
+            Object[] current = elements;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+                elements = current;
+            }
+            int index = size;
+            current[index] = user;
+            size = index + 1;
+            return index;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            int current = size;
+            if (index < 0 || index >= current) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current);
+            }
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
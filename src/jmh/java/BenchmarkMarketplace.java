@@ -0,0 +1,124 @@
+import benchmarks.MarketplaceOperations;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BenchmarkMarketplace implements MarketplaceOperations {
+    private static final int STOCK = Integer.MAX_VALUE / 2;
+    private static final int SEEDED_ORDERS = 1000;
+
+    private final Marketplace marketplace;
+    private final List<Seller> sellers;
+    private final Product[] products;
+    private final String[] names;
+    private final int cartSize;
+    private final Buyer browser;
+    private final AtomicInteger buyerCount = new AtomicInteger();
+
+    public BenchmarkMarketplace(int sellerCount, int catalogSize, int cartSize, boolean metrics) {
+        if (sellerCount <= 0 || catalogSize < sellerCount) {
+            throw new IllegalArgumentException("Catalog size must be at least the seller count");
+        }
+        if (cartSize <= 0 || cartSize >= catalogSize) {
+            throw new IllegalArgumentException("Cart size must be between 1 and the catalog size");
+        }
+        this.marketplace = new Marketplace();
+        this.cartSize = cartSize;
+        if (metrics) {
+            marketplace.setMetrics(new Metrics());
+        }
+        List<List<Product>> batches = new ArrayList<>(sellerCount);
+        for (int i = 0; i < sellerCount; i++) {
+            marketplace.createSeller("seller-" + i, "seller-" + i + "@example.com");
+            batches.add(new ArrayList<>());
+        }
+        this.sellers = marketplace.getSellers();
+        this.products = new Product[catalogSize];
+        this.names = new String[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            Seller seller = sellers.get(i % sellerCount);
+            names[i] = "product-" + i;
+            products[i] = new Product(names[i], 1 + i % 1000, STOCK, seller);
+            batches.get(i % sellerCount).add(products[i]);
+        }
+        for (int i = 0; i < sellerCount; i++) {
+            sellers.get(i).addProducts(batches.get(i));
+        }
+        this.browser = marketplace.createBuyer("browser", "browser@example.com");
+        Buyer seed = marketplace.createBuyer("seed", "seed@example.com");
+        for (int i = 0; i < SEEDED_ORDERS; i++) {
+            seed.addToCart(products[i * sellerCount % catalogSize], 1 + i % 3);
+            seed.checkout();
+        }
+    }
+
+    @Override
+    public Cart newCart() {
+        int id = buyerCount.getAndIncrement();
+        Buyer buyer = marketplace.createBuyer("cart-" + id, "cart-" + id + "@example.com");
+        Buyer shopper = marketplace.createBuyer("shopper-" + id, "shopper-" + id + "@example.com");
+        for (int i = 0; i < cartSize; i++) {
+            buyer.addToCart(products[i], 1);
+        }
+        List<CartItem> lines = buyer.getCart();
+        return new Cart() {
+            @Override
+            public void addAndRemove(int index) {
+                Product product = products[cartSize + index % (products.length - cartSize)];
+                buyer.addToCart(product, 1);
+                buyer.removeFromCart(product);
+            }
+
+            @Override
+            public long getTotalCentavos() {
+                return buyer.getCartTotalCentavos();
+            }
+
+            @Override
+            public double recomputeTotal() {
+                synchronized (buyer) {
+                    return lines.stream()
+                            .mapToDouble(CartItem::getTotalPrice)
+                            .sum();
+                }
+            }
+
+            @Override
+            public boolean checkout(int index) {
+                int first = (int) ((long) index * cartSize % products.length);
+                for (int i = 0; i < cartSize; i++) {
+                    shopper.addToCart(products[(first + i) % products.length], 1);
+                }
+                return shopper.checkout();
+            }
+        };
+    }
+
+    @Override
+    public int browseProducts() {
+        return browser.browseProducts(sellers).size();
+    }
+
+    @Override
+    public int scanCatalog() {
+        int[] count = new int[1];
+        marketplace.getCatalog().forEachAvailableProductUnder(500_00, product -> count[0]++);
+        return count[0];
+    }
+
+    @Override
+    public Object findProduct(int index) {
+        int product = index % products.length;
+        return sellers.get(product % sellers.size()).findProduct(names[product]);
+    }
+
+    @Override
+    public String getDashboard() {
+        return sellers.get(0).getDashboard();
+    }
+
+    @Override
+    public void close() {
+        marketplace.close();
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CheckoutBenchmark {
+    private static final int STOCK = Integer.MAX_VALUE / 2;
+
+    private final int productCount;
+    private final int linesPerOrder;
+    private final long durationMillis;
+
+    public CheckoutBenchmark(int productCount, int linesPerOrder, long durationMillis) {
+        if (productCount <= 0 || linesPerOrder <= 0 || linesPerOrder > productCount) {
+            throw new IllegalArgumentException("Lines per order must be between 1 and the product count");
+        }
+        if (durationMillis <= 0) {
+            throw new IllegalArgumentException("Duration must be greater than 0");
+        }
+        this.productCount = productCount;
+        this.linesPerOrder = linesPerOrder;
+        this.durationMillis = durationMillis;
+    }
+
+    public void run(boolean sequenced, int threadCount) throws InterruptedException {
+        try (Marketplace marketplace = new Marketplace()) {
+            marketplace.setOrderLedger(null);
+            if (sequenced) {
+                marketplace.setOrderSequencer(new OrderSequencer());
+            }
+            Seller seller = marketplace.createSeller("bench-seller", "bench-seller@example.com");
+            List<Product> products = new ArrayList<>(productCount);
+            for (int i = 0; i < productCount; i++) {
+                seller.uploadProduct("bench-product-" + i, 1 + i / 100.0, STOCK);
+                products.add(seller.findProduct("bench-product-" + i));
+            }
+
+            LatencyHistogram latency = new LatencyHistogram();
+            LongAdder failures = new LongAdder();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[threadCount];
+            long deadline = System.nanoTime() + durationMillis * 1_000_000;
+            for (int t = 0; t < threadCount; t++) {
+                Buyer buyer = marketplace.createBuyer("bench-buyer-" + t, "bench-buyer-" + t + "@example.com");
+                SplittableRandom random = new SplittableRandom(t);
+                threads[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while (System.nanoTime() < deadline) {
+                        int first = random.nextInt(productCount);
+                        for (int line = 0; line < linesPerOrder; line++) {
+                            buyer.addToCart(products.get((first + line) % productCount), 1);
+                        }
+                        long begin = System.nanoTime();
+                        try {
+                            buyer.checkout();
+                        } catch (IllegalStateException e) {
+                            failures.increment();
+                            buyer.clearCart();
+                        }
+                        latency.record(System.nanoTime() - begin);
+                    }
+                }, "bench-producer-" + t);
+                threads[t].start();
+            }
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+            System.out.printf("%-10s %8d %12.0f %10.1f %10.1f %10.1f %10.1f %8d%n", sequenced ? "sequenced" : "cas",
+                    threadCount, latency.getCount() / seconds, latency.getPercentileNanos(0.50) / 1000.0,
+                    latency.getPercentileNanos(0.99) / 1000.0, latency.getPercentileNanos(0.999) / 1000.0,
+                    latency.getMaxNanos() / 1000.0, failures.sum());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        CheckoutBenchmark benchmark = new CheckoutBenchmark(
+                Integer.parseInt(options.getOrDefault("products", "8")),
+                Integer.parseInt(options.getOrDefault("lines", "2")),
+                Long.parseLong(options.getOrDefault("seconds", "5")) * 1000);
+        System.out.printf("%-10s %8s %12s %10s %10s %10s %10s %8s%n",
+                "mode", "threads", "orders/s", "p50 us", "p99 us", "p99.9 us", "max us", "failed");
+        for (String threads : options.getOrDefault("threads", "1,4,16").split(",")) {
+            for (boolean sequenced : new boolean[] {false, true}) {
+                benchmark.run(sequenced, Integer.parseInt(threads.trim()));
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadSimulation {
+    private static final String[] OPERATIONS = {"addToCart", "checkout", "clearCart", "restock"};
+    private static final int ADD_TO_CART = 0;
+    private static final int CHECKOUT = 1;
+    private static final int CLEAR_CART = 2;
+    private static final int RESTOCK = 3;
+    private static final int MAX_SAMPLES_PER_THREAD = 1 << 20;
+
+    private final int sellerCount;
+    private final int buyerCount;
+    private final int productCount;
+    private final int threadCount;
+    private final long durationMillis;
+    private final double zipfExponent;
+    private final int initialStock;
+
+    private final LongAdder unitsUploaded = new LongAdder();
+    private final LongAdder unitsRestocked = new LongAdder();
+    private final LongAdder unitsSold = new LongAdder();
+    private final LongAdder[] succeeded = newAdders();
+    private final LongAdder[] failed = newAdders();
+
+    public LoadSimulation(int sellerCount, int buyerCount, int productCount, int threadCount, long durationMillis,
+            double zipfExponent, int initialStock) {
+        if (sellerCount <= 0 || buyerCount <= 0 || productCount <= 0 || threadCount <= 0) {
+            throw new IllegalArgumentException("Counts must be greater than 0");
+        }
+        if (durationMillis <= 0) {
+            throw new IllegalArgumentException("Duration must be greater than 0");
+        }
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("Zipf exponent cannot be negative");
+        }
+        if (initialStock <= 0) {
+            throw new IllegalArgumentException("Initial stock must be greater than 0");
+        }
+        this.sellerCount = sellerCount;
+        this.buyerCount = buyerCount;
+        this.productCount = productCount;
+        this.threadCount = threadCount;
+        this.durationMillis = durationMillis;
+        this.zipfExponent = zipfExponent;
+        this.initialStock = initialStock;
+    }
+
+    public boolean run(Marketplace marketplace) throws InterruptedException {
+        List<Product> products = populate(marketplace);
+        List<Buyer> buyers = new ArrayList<>(buyerCount);
+        for (int i = 0; i < buyerCount; i++) {
+            buyers.add(marketplace.createBuyer("sim-buyer-" + i, "sim-buyer-" + i + "@example.com"));
+        }
+        double[] cumulative = zipfDistribution(products.size(), zipfExponent);
+
+        Worker[] workers = new Worker[threadCount];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            List<Buyer> owned = new ArrayList<>();
+            for (int b = i; b < buyers.size(); b += threadCount) {
+                owned.add(buyers.get(b));
+            }
+            workers[i] = new Worker(owned, products, cumulative, new SplittableRandom(31L * i + 7), start);
+            threads[i] = new Thread(workers[i], "sim-worker-" + i);
+            threads[i].start();
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        Thread.sleep(durationMillis);
+        for (Worker worker : workers) {
+            worker.stop();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        buyers.forEach(Buyer::clearCart);
+        report(workers, elapsedNanos);
+        Metrics metrics = marketplace.getMetrics();
+        if (metrics != null) {
+            System.out.println();
+            System.out.print(metrics.getReport());
+        }
+        SalesAnalytics analytics = marketplace.getSalesAnalytics();
+        if (analytics != null) {
+            System.out.println();
+            System.out.print(analytics.summarize(5, 1).appendTo(new StringBuilder("SALES\n")));
+        }
+        return verify(marketplace, products);
+    }
+
+    private List<Product> populate(Marketplace marketplace) {
+        List<Seller> sellers = new ArrayList<>(sellerCount);
+        for (int i = 0; i < sellerCount; i++) {
+            sellers.add(marketplace.createSeller("sim-seller-" + i, "sim-seller-" + i + "@example.com"));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            Seller seller = sellers.get(i % sellerCount);
+            String name = "sim-product-" + i;
+            seller.uploadProduct(name, 1 + random.nextInt(100000) / 100.0, initialStock);
+            products.add(seller.findProduct(name));
+            unitsUploaded.add(initialStock);
+        }
+        return products;
+    }
+
+    private static double[] zipfDistribution(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    private void report(Worker[] workers, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long totalOps = 0;
+        System.out.printf("Simulated %d sellers, %d buyers, %d products on %d threads for %.1f s (zipf %.2f)%n",
+                sellerCount, buyerCount, productCount, threadCount, seconds, zipfExponent);
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "ok", "failed", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us");
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            long[] samples = merge(workers, op);
+            long ops = succeeded[op].sum() + failed[op].sum();
+            totalOps += ops;
+            System.out.printf("%-10s %10d %10d %10.0f %10.1f %10.1f %10.1f %10.1f%n", OPERATIONS[op],
+                    succeeded[op].sum(), failed[op].sum(), ops / seconds, percentile(samples, 0.50),
+                    percentile(samples, 0.99), percentile(samples, 0.999), percentile(samples, 1.0));
+        }
+        System.out.printf("Total throughput: %.0f ops/s%n", totalOps / seconds);
+    }
+
+    private boolean verify(Marketplace marketplace, List<Product> products) {
+        long remaining = 0;
+        int negative = 0;
+        for (Product product : products) {
+            int quantity = product.getQuantity();
+            if (quantity < 0) {
+                negative++;
+            }
+            remaining += quantity;
+        }
+        long supplied = unitsUploaded.sum() + unitsRestocked.sum();
+        long accounted = unitsSold.sum() + remaining;
+        Catalog catalog = marketplace.getCatalog();
+        long indexed = catalog.getProductCount() == products.size()
+                ? catalog.getInventory().totalUnitsInStock() : remaining;
+        SalesAnalytics analytics = marketplace.getSalesAnalytics();
+        long recorded = analytics == null ? unitsSold.sum() : analytics.summarize(0, 0).getUnits();
+        boolean ok = supplied == accounted && negative == 0 && indexed == remaining && recorded == unitsSold.sum();
+        System.out.printf("Units uploaded %d + restocked %d = %d; sold %d + remaining %d = %d%n",
+                unitsUploaded.sum(), unitsRestocked.sum(), supplied, unitsSold.sum(), remaining, accounted);
+        System.out.printf("Negative quantities: %d; inventory store units: %d; order ledger units: %d%n", negative,
+                indexed, recorded);
+        System.out.println(ok ? "INVARIANTS OK" : "INVARIANT VIOLATION");
+        return ok;
+    }
+
+    private static long[] merge(Worker[] workers, int op) {
+        int total = 0;
+        for (Worker worker : workers) {
+            total += worker.sampleCounts[op];
+        }
+        long[] merged = new long[total];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.samples[op], 0, merged, offset, worker.sampleCounts[op]);
+            offset += worker.sampleCounts[op];
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[OPERATIONS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private final class Worker implements Runnable {
+        private final List<Buyer> buyers;
+        private final List<Product> products;
+        private final double[] cumulative;
+        private final SplittableRandom random;
+        private final CountDownLatch start;
+        private final long[][] samples = new long[OPERATIONS.length][1024];
+        private final int[] sampleCounts = new int[OPERATIONS.length];
+        private volatile boolean running = true;
+
+        private Worker(List<Buyer> buyers, List<Product> products, double[] cumulative, SplittableRandom random,
+                CountDownLatch start) {
+            this.buyers = buyers;
+            this.products = products;
+            this.cumulative = cumulative;
+            this.random = random;
+            this.start = start;
+        }
+
+        private void stop() {
+            running = false;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            while (running && !buyers.isEmpty()) {
+                Buyer buyer = buyers.get(random.nextInt(buyers.size()));
+                int roll = random.nextInt(100);
+                int op = roll < 70 ? ADD_TO_CART : roll < 90 ? CHECKOUT : roll < 95 ? CLEAR_CART : RESTOCK;
+                long begin = System.nanoTime();
+                boolean ok = execute(op, buyer);
+                record(op, System.nanoTime() - begin);
+                (ok ? succeeded[op] : failed[op]).increment();
+            }
+        }
+
+        private boolean execute(int op, Buyer buyer) {
+            try {
+                switch (op) {
+                    case ADD_TO_CART:
+                        buyer.addToCart(pickProduct(), 1 + random.nextInt(3));
+                        return true;
+                    case CHECKOUT:
+                        int units = buyer.getCartUnits();
+                        if (!buyer.checkout()) {
+                            return false;
+                        }
+                        unitsSold.add(units);
+                        return true;
+                    case CLEAR_CART:
+                        buyer.clearCart();
+                        return true;
+                    default:
+                        int amount = 1 + random.nextInt(initialStock);
+                        pickProduct().increaseQuantity(amount);
+                        unitsRestocked.add(amount);
+                        return true;
+                }
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        }
+
+        private Product pickProduct() {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            int rank = index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+            return products.get(rank);
+        }
+
+        private void record(int op, long nanos) {
+            int count = sampleCounts[op];
+            if (count == MAX_SAMPLES_PER_THREAD) {
+                int slot = random.nextInt(count);
+                samples[op][slot] = nanos;
+                return;
+            }
+            if (count == samples[op].length) {
+                samples[op] = Arrays.copyOf(samples[op], count * 2);
+            }
+            samples[op][count] = nanos;
+            sampleCounts[op] = count + 1;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        LoadSimulation simulation = new LoadSimulation(
+                Integer.parseInt(options.getOrDefault("sellers", "20")),
+                Integer.parseInt(options.getOrDefault("buyers", "500")),
+                Integer.parseInt(options.getOrDefault("products", "10000")),
+                Integer.parseInt(options.getOrDefault("threads",
+                        Integer.toString(Runtime.getRuntime().availableProcessors()))),
+                Long.parseLong(options.getOrDefault("seconds", "10")) * 1000,
+                Double.parseDouble(options.getOrDefault("zipf", "1.1")),
+                Integer.parseInt(options.getOrDefault("stock", "20")));
+
+        boolean ok;
+        try (Marketplace marketplace = Marketplace.fromSystemProperties()) {
+            ok = simulation.run(marketplace);
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class MarketplaceBenchmark {
+    @Param({"10000", "100000"})
+    public int catalogSize;
+
+    @Param({"1", "10", "50"})
+    public int cartSize;
+
+    @Param({"100"})
+    public int sellerCount;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private MarketplaceOperations marketplace;
+
+    @Setup(Level.Trial)
+    public void open() throws ReflectiveOperationException {
+        marketplace = (MarketplaceOperations) Class.forName("BenchmarkMarketplace")
+                .getConstructor(int.class, int.class, int.class, boolean.class)
+                .newInstance(sellerCount, catalogSize, cartSize, metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        marketplace.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        private MarketplaceOperations.Cart cart;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void open(MarketplaceBenchmark benchmark) {
+            cart = benchmark.marketplace.newCart();
+        }
+    }
+
+    @Benchmark
+    public void addToCart(Session session) {
+        session.cart.addAndRemove(session.next++);
+    }
+
+    @Benchmark
+    public long getCartTotal(Session session) {
+        return session.cart.getTotalCentavos();
+    }
+
+    @Benchmark
+    public double getCartTotalByStream(Session session) {
+        return session.cart.recomputeTotal();
+    }
+
+    @Benchmark
+    public boolean checkout(Session session) {
+        return session.cart.checkout(session.next++);
+    }
+
+    @Benchmark
+    public int browseProducts() {
+        return marketplace.browseProducts();
+    }
+
+    @Benchmark
+    public int scanCatalog() {
+        return marketplace.scanCatalog();
+    }
+
+    @Benchmark
+    public Object findProduct(Session session) {
+        return marketplace.findProduct(session.next++);
+    }
+
+    @Benchmark
+    public String getDashboard() {
+        return marketplace.getDashboard();
+    }
+}
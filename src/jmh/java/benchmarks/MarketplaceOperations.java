@@ -0,0 +1,26 @@
+package benchmarks;
+
+public interface MarketplaceOperations extends AutoCloseable {
+    Cart newCart();
+
+    int browseProducts();
+
+    int scanCatalog();
+
+    Object findProduct(int index);
+
+    String getDashboard();
+
+    @Override
+    void close();
+
+    interface Cart {
+        void addAndRemove(int index);
+
+        long getTotalCentavos();
+
+        double recomputeTotal();
+
+        boolean checkout(int index);
+    }
+}
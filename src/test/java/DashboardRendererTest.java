@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DashboardRendererTest {
+    private static final int PAGE_SIZE = 3;
+
+    @Test
+    public void catalogPagesFollowAvailabilityChanges() throws Exception {
+        try (Marketplace marketplace = new Marketplace();
+                DashboardRenderer renderer = new DashboardRenderer(marketplace.getCatalog(), PAGE_SIZE)) {
+            Seller seller = marketplace.createSeller("seller", "seller@example.com");
+            Buyer buyer = marketplace.createBuyer("buyer", "buyer@example.com");
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                products.add(seller.uploadProductCentavos("item-" + (char) ('a' + i), 100, 5));
+            }
+            for (int page = 0; page < 4; page++) {
+                render(renderer, buyer, 0, page);
+            }
+
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                products.get(i).setQuantity(0);
+            }
+            DashboardRenderer.Page page = render(renderer, buyer, 0, 2);
+
+            assertEquals(2, page.getCatalogPage());
+            assertEquals(3, page.getCatalogPageCount());
+            assertTrue(page.getText().contains("(7-7 of 7)"), page.getText());
+            assertTrue(page.getText().contains("item-j"), page.getText());
+            assertFalse(page.getText().contains("item-i"), page.getText());
+        }
+    }
+
+    @Test
+    public void cartAndCatalogArePagedSeparately() throws Exception {
+        try (Marketplace marketplace = new Marketplace();
+                DashboardRenderer renderer = new DashboardRenderer(marketplace.getCatalog(), PAGE_SIZE)) {
+            Seller seller = marketplace.createSeller("seller", "seller@example.com");
+            Buyer buyer = marketplace.createBuyer("buyer", "buyer@example.com");
+            for (int i = 0; i < 10; i++) {
+                seller.uploadProductCentavos("item-" + (char) ('a' + i), 100, 5);
+            }
+            buyer.addToCart(seller.findProduct("item-a"), 1);
+
+            DashboardRenderer.Page page = render(renderer, buyer, 2, 3);
+
+            assertEquals(0, page.getPage());
+            assertEquals(1, page.getPageCount());
+            assertEquals(3, page.getCatalogPage());
+            assertEquals(4, page.getCatalogPageCount());
+            assertTrue(page.getText().contains("- item-a x1"), page.getText());
+        }
+    }
+
+    private static DashboardRenderer.Page render(DashboardRenderer renderer, User user, int page, int catalogPage)
+            throws Exception {
+        CompletableFuture<DashboardRenderer.Page> result = new CompletableFuture<>();
+        renderer.render(user, page, catalogPage, result::complete);
+        return result.get(5, TimeUnit.SECONDS);
+    }
+}
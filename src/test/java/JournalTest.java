@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replayAttachesRecordsToRenamedUsers() throws Exception {
+        Path path = directory.resolve("journal");
+        long sellerId;
+        long buyerId;
+        long productId;
+        try (Marketplace marketplace = new Marketplace()) {
+            new Journal(path).recover(marketplace);
+            Seller seller = marketplace.createSeller("seller", "seller@example.com");
+            Buyer buyer = marketplace.createBuyer("buyer", "buyer@example.com");
+            seller.setUsername("renamed-seller");
+            buyer.setUsername("renamed-buyer");
+            Product product = seller.uploadProductCentavos("widget", 250, 10);
+            buyer.addToCart(product, 3);
+            sellerId = seller.getId();
+            buyerId = buyer.getId();
+            productId = product.getId();
+        }
+
+        try (Marketplace marketplace = new Marketplace()) {
+            new Journal(path).recover(marketplace);
+            Product product = marketplace.getCatalog().getProduct(productId);
+            assertNotNull(product);
+            assertEquals(sellerId, product.getSeller().getId());
+            Buyer buyer = find(marketplace.getBuyers(), buyerId);
+            List<CartItem> cart = buyer.getCart();
+            assertEquals(1, cart.size());
+            assertEquals(product, cart.get(0).getProduct());
+            assertEquals(3, cart.get(0).getQuantity());
+        }
+    }
+
+    @Test
+    public void checkoutReplaysAsOneOrder() throws Exception {
+        assertCheckoutReplays(false);
+    }
+
+    @Test
+    public void sequencedCheckoutReplaysAsOneOrder() throws Exception {
+        assertCheckoutReplays(true);
+    }
+
+    private void assertCheckoutReplays(boolean sequenced) throws Exception {
+        Path path = directory.resolve("journal");
+        long buyerId;
+        long firstId;
+        long secondId;
+        try (Marketplace marketplace = new Marketplace()) {
+            if (sequenced) {
+                marketplace.setOrderSequencer(new OrderSequencer());
+            }
+            new Journal(path).recover(marketplace);
+            Seller seller = marketplace.createSeller("seller", "seller@example.com");
+            Buyer buyer = marketplace.createBuyer("buyer", "buyer@example.com");
+            Product first = seller.uploadProductCentavos("first", 250, 10);
+            Product second = seller.uploadProductCentavos("second", 400, 5);
+            buyer.addToCart(first, 3);
+            buyer.addToCart(second, 2);
+            assertTrue(buyer.checkout());
+            buyer.addToCart(first, 1);
+            buyerId = buyer.getId();
+            firstId = first.getId();
+            secondId = second.getId();
+        }
+
+        try (Marketplace marketplace = new Marketplace()) {
+            new Journal(path).recover(marketplace);
+            Catalog catalog = marketplace.getCatalog();
+            assertEquals(7, catalog.getProduct(firstId).getQuantity());
+            assertEquals(3, catalog.getProduct(secondId).getQuantity());
+            Buyer buyer = find(marketplace.getBuyers(), buyerId);
+            assertEquals(1, buyer.getCart().size());
+            assertEquals(1, buyer.getCart().get(0).getQuantity());
+            OrderLedger ledger = marketplace.getOrderLedger();
+            assertEquals(1, ledger.size());
+            assertEquals(3 * 250 + 2 * 400, ledger.getOrders(buyer, 0, 10).get(0).getTotalCentavos());
+        }
+    }
+
+    @Test
+    public void truncatingAtASnapshotDropsOlderSegments() throws Exception {
+        Path path = directory.resolve("journal");
+        Path snapshots = directory.resolve("snapshots");
+        long productId;
+        try (Marketplace marketplace = new Marketplace()) {
+            Journal journal = new Journal(path, 4096, 20);
+            journal.recover(marketplace);
+            Seller seller = marketplace.createSeller("seller", "seller@example.com");
+            Product product = seller.uploadProductCentavos("widget", 250, 1);
+            for (int i = 2; i <= 1000; i++) {
+                product.setQuantity(i);
+            }
+            long position = journal.getPosition();
+            Snapshot.write(marketplace, snapshots);
+            int before = segmentCount(path);
+            journal.truncateBefore(position);
+            assertTrue(segmentCount(path) < before);
+            product.setQuantity(7);
+            productId = product.getId();
+        }
+
+        try (Marketplace marketplace = new Marketplace()) {
+            Journal journal = new Journal(path, 4096, 20);
+            assertThrows(IOException.class, () -> journal.recover(marketplace));
+            journal.close();
+        }
+        try (Marketplace marketplace = new Marketplace()) {
+            Journal journal = new Journal(path, 4096, 20);
+            journal.recover(marketplace, Snapshot.load(Snapshot.findLatest(snapshots), marketplace));
+            assertEquals(7, marketplace.getCatalog().getProduct(productId).getQuantity());
+        }
+    }
+
+    private static int segmentCount(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return (int) files.count();
+        }
+    }
+
+    static <T extends User> T find(List<T> users, long id) {
+        for (T user : users) {
+            if (user.getId() == id) {
+                return user;
+            }
+        }
+        throw new AssertionError("No user with id " + id);
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderSequencerTest {
+    private static final int PRODUCERS = 8;
+    private static final int STOCK = 1000;
+
+    @Test
+    public void closeCompletesProducersBlockedOnAFullRing() throws Exception {
+        Product product = new Product("widget", 1.0, STOCK, new Seller("seller", "seller@example.com"));
+        OrderSequencer sequencer = new OrderSequencer(2, 1);
+        List<CompletableFuture<OrderResult>> futures = new CopyOnWriteArrayList<>();
+        List<RuntimeException> rejected = new CopyOnWriteArrayList<>();
+        List<Thread> producers = new ArrayList<>();
+
+        int[] stripes = CheckoutTransaction.lock(List.of(product));
+        Thread closer;
+        try {
+            for (int i = 0; i < PRODUCERS; i++) {
+                Thread producer = new Thread(() -> {
+                    try {
+                        futures.add(sequencer.submit(List.of(new CartItem(product, 1))));
+                    } catch (IllegalStateException e) {
+                        rejected.add(e);
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            Thread.sleep(200);
+            assertTrue(producers.stream().anyMatch(Thread::isAlive), "producers should be blocked on the full ring");
+
+            closer = new Thread(sequencer::close);
+            closer.start();
+            Thread.sleep(100);
+            assertTrue(closer.isAlive(), "close should wait for the writer");
+        } finally {
+            CheckoutTransaction.unlock(stripes);
+        }
+
+        closer.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(closer.isAlive(), "close must not hang");
+        for (Thread producer : producers) {
+            producer.join(TimeUnit.SECONDS.toMillis(5));
+            assertFalse(producer.isAlive(), "producer must not stay blocked");
+        }
+        assertEquals(PRODUCERS, futures.size() + rejected.size());
+
+        int sold = 0;
+        for (CompletableFuture<OrderResult> future : futures) {
+            assertTrue(future.isDone(), "every accepted order must complete");
+            try {
+                if (future.join().isSuccessful()) {
+                    sold++;
+                }
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertTrue(sold >= 1);
+        assertEquals(STOCK - sold, product.getQuantity());
+    }
+
+    @Test
+    public void submitAfterCloseIsRejected() {
+        Product product = new Product("widget", 1.0, STOCK, new Seller("seller", "seller@example.com"));
+        OrderSequencer sequencer = new OrderSequencer();
+        sequencer.close();
+
+        assertTrue(sequencer.isClosed());
+        assertThrows(IllegalStateException.class, () -> sequencer.submit(List.of(new CartItem(product, 1))));
+        assertEquals(STOCK, product.getQuantity());
+    }
+}
@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OversellTest {
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 200;
+    private static final int STOCK = 500;
+
+    @Test
+    public void concurrentReductionsNeverOversell() throws Exception {
+        Product product = new Product("widget", 1.0, STOCK, new Seller("seller", "seller@example.com"));
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int amount = 1 + t % 3;
+            Thread thread = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (product.tryReduceQuantity(amount)) {
+                        sold.addAndGet(amount);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(product.getQuantity() >= 0);
+        assertEquals(STOCK, sold.get() + product.getQuantity());
+        assertFalse(product.isAvailable(3), "three concurrent sizes must drain the stock below the largest request");
+    }
+
+    @Test
+    public void concurrentCheckoutsSellExactlyTheInitialStock() throws Exception {
+        try (Marketplace marketplace = new Marketplace()) {
+            Seller seller = marketplace.createSeller("seller", "seller@example.com");
+            seller.uploadProduct("first", 1.0, STOCK);
+            seller.uploadProduct("second", 2.0, STOCK);
+            Product first = seller.findProduct("first");
+            Product second = seller.findProduct("second");
+
+            AtomicInteger orders = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Buyer buyer = marketplace.createBuyer("buyer-" + t, "buyer-" + t + "@example.com");
+                boolean reversed = t % 2 == 1;
+                Thread thread = new Thread(() -> {
+                    await(start);
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            buyer.addToCart(reversed ? second : first, 1);
+                            buyer.addToCart(reversed ? first : second, 1);
+                            buyer.checkout();
+                            orders.incrementAndGet();
+                        } catch (IllegalArgumentException | IllegalStateException e) {
+                            rejected.incrementAndGet();
+                            buyer.clearCart();
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(0, first.getQuantity());
+            assertEquals(0, second.getQuantity());
+            assertEquals(STOCK, orders.get());
+            assertEquals(THREADS * ATTEMPTS_PER_THREAD - STOCK, rejected.get());
+            assertEquals(STOCK, marketplace.getOrderLedger().size());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
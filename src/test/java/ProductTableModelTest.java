@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductTableModelTest {
+    private static final int PRODUCTS = 200;
+
+    @Test
+    public void bulkUpdatesKeepRowsAndSelection() throws Exception {
+        try (Marketplace marketplace = new Marketplace()) {
+            Seller seller = marketplace.createSeller("seller", "seller@example.com");
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < PRODUCTS; i++) {
+                Product product = seller.uploadProductCentavos("product-" + i, 100 + i, 5);
+                if (i % 2 == 1) {
+                    product.setQuantity(0);
+                }
+                products.add(product);
+            }
+            ProductListModel list = new ProductListModel(marketplace.getCatalog());
+            ProductTableModel model = new ProductTableModel(list);
+            List<TableModelEvent> events = new ArrayList<>();
+            JTable[] table = new JTable[1];
+            SwingUtilities.invokeAndWait(() -> {
+                table[0] = new JTable(model);
+                table[0].setAutoCreateRowSorter(true);
+                table[0].setRowSelectionInterval(0, 0);
+                model.addTableModelListener(events::add);
+            });
+            Product selected = products.get(0);
+
+            int available = 1;
+            for (int i = 1; i < PRODUCTS; i++) {
+                boolean restock = i % 4 == 1;
+                products.get(i).setQuantity(restock ? 5 : 0);
+                if (restock) {
+                    available++;
+                }
+            }
+            int expectedRows = available;
+            awaitFlush(list, expectedRows);
+
+            SwingUtilities.invokeAndWait(() -> {
+                assertEquals(expectedRows, table[0].getRowCount());
+                int row = table[0].convertRowIndexToModel(table[0].getSelectedRow());
+                assertEquals(selected, model.getProductAt(row));
+                for (int i = 0; i < model.getRowCount(); i++) {
+                    assertTrue(model.getProductAt(i).getQuantity() > 0);
+                }
+            });
+            assertTrue(events.stream().anyMatch(e -> e.getType() == TableModelEvent.DELETE));
+            for (TableModelEvent event : events) {
+                assertTrue(event.getLastRow() < PRODUCTS, "bulk updates must not fire a full table refresh");
+            }
+            list.dispose();
+        }
+    }
+
+    private static void awaitFlush(ProductListModel list, int expectedSize) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        int[] size = new int[1];
+        do {
+            Thread.sleep(20);
+            SwingUtilities.invokeAndWait(() -> size[0] = list.getSize());
+        } while (size[0] != expectedSize && System.nanoTime() < deadline);
+        assertEquals(expectedSize, size[0]);
+    }
+}